@@ -0,0 +1,65 @@
+package com.example.crudtask.benchmark;
+
+import com.example.crudtask.entity.BalanceUpdateResult;
+import com.example.crudtask.service.impl.BalanceUpdateService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Один проход начисления процентов. Перед каждым вызовом балансы
+ * сбрасываются к начальным, иначе после достижения потолка обновлять нечего.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class BalanceUpdateBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int accounts;
+
+    @Param({"single", "chunked"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private BalanceUpdateService balanceUpdateService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("accrualbench", "--balance.update.mode=" + mode);
+        jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkApplication.seedUsers(jdbc, accounts, "1000.00");
+        balanceUpdateService = context.getBean(BalanceUpdateService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetBalances() {
+        jdbc.update("UPDATE account SET balance = initial_balance");
+        // Прогон в chunked-режиме мог остаться незавершенным — начинаем с чистого листа
+        jdbc.update("DELETE FROM balance_update_checkpoint");
+        jdbc.update("DELETE FROM balance_update_run");
+        // Срок следующего запуска хранится в строке аренды: без сброса каждый вызов
+        // после первого пропускал бы начисление как уже выполненное в этом периоде
+        jdbc.update("UPDATE scheduler_lease SET next_run_at = NULL");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BalanceUpdateResult updateBalances() {
+        BalanceUpdateResult result = balanceUpdateService.updateBalances();
+        if (result.getUpdatedRows() == 0) {
+            throw new IllegalStateException("Начисление не выполнено: замер был бы пустым");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.crudtask.benchmark;
+
+import com.example.crudtask.CrudTaskApplication;
+import com.example.crudtask.entity.UserPrincipal;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Запуск приложения на отдельной базе H2 и заполнение ее синтетическими
+ * пользователями для бенчмарков.
+ */
+final class BenchmarkApplication {
+
+    static final String EMAIL_DOMAIN = "@bench.local";
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String database, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                // Плановое начисление не должно срабатывать во время замеров
+                "--balance.update.initial-delay-ms=3600000",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        args.addAll(Arrays.asList(extraArgs));
+        return new SpringApplicationBuilder(CrudTaskApplication.class).run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Добавляет пользователей со счетом, одним телефоном и одним email.
+     * Вставка идет через INSERT ... SELECT, чтобы миллион строк создавался за секунды.
+     */
+    static void seedUsers(JdbcTemplate jdbc, int count, String balance) {
+        jdbc.update("INSERT INTO user_table (name, date_of_birth, password, user_email, token_version) " +
+                "SELECT 'Пользователь ' || X, DATEADD(DAY, -MOD(X, 20000), DATE '2005-01-01'), 'bench', " +
+                "'user' || X || '" + EMAIL_DOMAIN + "', 0 FROM SYSTEM_RANGE(1, ?)", count);
+        jdbc.update("INSERT INTO account (user_id, balance, initial_balance) " +
+                "SELECT id, " + balance + ", " + balance + " FROM user_table WHERE user_email LIKE '%" + EMAIL_DOMAIN + "'");
+        jdbc.update("UPDATE user_table u SET account_id = (SELECT a.id FROM account a WHERE a.user_id = u.id) " +
+                "WHERE u.user_email LIKE '%" + EMAIL_DOMAIN + "'");
+        jdbc.update("INSERT INTO email_data (user_id, email) " +
+                "SELECT id, user_email FROM user_table WHERE user_email LIKE '%" + EMAIL_DOMAIN + "'");
+        jdbc.update("INSERT INTO phone_data (user_id, phone) " +
+                "SELECT id, CAST(70000000000 + CAST(SUBSTRING(user_email, 5, LOCATE('@', user_email) - 5) AS BIGINT) AS VARCHAR) " +
+                "FROM user_table WHERE user_email LIKE '%" + EMAIL_DOMAIN + "'");
+    }
+
+    static List<UserPrincipal> seededPrincipals(JdbcTemplate jdbc, int limit) {
+        return jdbc.query("SELECT id, user_email, token_version FROM user_table " +
+                        "WHERE user_email LIKE '%" + EMAIL_DOMAIN + "' ORDER BY id LIMIT ?",
+                (rs, i) -> new UserPrincipal(rs.getLong(1), rs.getString(2), rs.getInt(3)), limit);
+    }
+
+    static void authenticate(UserPrincipal principal) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.crudtask.benchmark;
+
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.entity.UserPrincipal;
+import com.example.crudtask.service.impl.AccountBucketService;
+import com.example.crudtask.service.impl.TransferService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Переводы со многих счетов на один горячий: без корзин все зачисления ждут
+ * одну строку account, с корзинами расходятся по buckets строкам.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class HotAccountBenchmark {
+
+    private static final int SENDERS = 256;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"0", "8"})
+    public int buckets;
+
+    private ConfigurableApplicationContext context;
+    private TransferService transferService;
+    private List<UserPrincipal> principals;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("hotaccountbench");
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkApplication.seedUsers(jdbc, SENDERS + 1, "1000000000.00");
+        principals = BenchmarkApplication.seededPrincipals(jdbc, SENDERS + 1);
+        Long hotAccountId = context.getBean(AccountDAO.class).findIdByUserId(principals.get(0).getId());
+        context.getBean(AccountBucketService.class).setBucketCount(hotAccountId, buckets);
+        transferService = context.getBean(TransferService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String creditHotAccount() {
+        UserPrincipal sender = principals.get(1 + ThreadLocalRandom.current().nextInt(SENDERS));
+        BenchmarkApplication.authenticate(sender);
+        return transferService.transferMoney(sender.getId(), principals.get(0).getId(), AMOUNT);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.crudtask.benchmark;
+
+import com.example.crudtask.entity.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Арифметика балансов на BigDecimal и на Money в копейках: сведение пачки переводов
+ * в изменения по счетам, как в TransferPipeline, и начисление процентов по формуле
+ * AccountDAO.ACCRUED_BALANCE. Аллокации видны с профилировщиком:
+ * -Djmh.args="MoneyBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class MoneyBenchmark {
+
+    private static final int TRANSFERS = 200;
+    private static final int ACCOUNTS = 64;
+    private static final BigDecimal RATE = new BigDecimal("1.10");
+    private static final BigDecimal CAP = new BigDecimal("2.07");
+
+    private long[] fromIds;
+    private long[] toIds;
+    private BigDecimal[] decimalAmounts;
+    private Money[] moneyAmounts;
+    private BigDecimal[] decimalBalances;
+    private BigDecimal[] decimalInitial;
+    private Money[] moneyBalances;
+    private Money[] moneyInitial;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        fromIds = new long[TRANSFERS];
+        toIds = new long[TRANSFERS];
+        decimalAmounts = new BigDecimal[TRANSFERS];
+        moneyAmounts = new Money[TRANSFERS];
+        for (int i = 0; i < TRANSFERS; i++) {
+            fromIds[i] = random.nextInt(ACCOUNTS);
+            toIds[i] = random.nextInt(ACCOUNTS);
+            long kopecks = random.nextLong(1, 1_000_000);
+            decimalAmounts[i] = BigDecimal.valueOf(kopecks, 2);
+            moneyAmounts[i] = Money.ofKopecks(kopecks);
+        }
+        decimalBalances = new BigDecimal[ACCOUNTS];
+        decimalInitial = new BigDecimal[ACCOUNTS];
+        moneyBalances = new Money[ACCOUNTS];
+        moneyInitial = new Money[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            long initial = random.nextLong(1, 100_000_000);
+            long balance = initial + random.nextLong(0, initial);
+            decimalInitial[i] = BigDecimal.valueOf(initial, 2);
+            decimalBalances[i] = BigDecimal.valueOf(balance, 2);
+            moneyInitial[i] = Money.ofKopecks(initial);
+            moneyBalances[i] = Money.ofKopecks(balance);
+        }
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> nettingBigDecimal() {
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            deltas.merge(fromIds[i], decimalAmounts[i].negate(), BigDecimal::add);
+            deltas.merge(toIds[i], decimalAmounts[i], BigDecimal::add);
+        }
+        return deltas;
+    }
+
+    @Benchmark
+    public Map<Long, Money> nettingMoney() {
+        Map<Long, Money> deltas = new HashMap<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            deltas.merge(fromIds[i], moneyAmounts[i].negate(), Money::plus);
+            deltas.merge(toIds[i], moneyAmounts[i], Money::plus);
+        }
+        return deltas;
+    }
+
+    @Benchmark
+    public BigDecimal[] accrualBigDecimal() {
+        BigDecimal[] accrued = new BigDecimal[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accrued[i] = decimalBalances[i].multiply(RATE).min(decimalInitial[i].multiply(CAP))
+                    .setScale(2, RoundingMode.HALF_UP);
+        }
+        return accrued;
+    }
+
+    @Benchmark
+    public Money[] accrualMoney() {
+        Money[] accrued = new Money[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accrued[i] = Money.min(moneyBalances[i].multiplyBasisPoints(11_000),
+                    moneyInitial[i].multiplyBasisPoints(20_700));
+        }
+        return accrued;
+    }
+}
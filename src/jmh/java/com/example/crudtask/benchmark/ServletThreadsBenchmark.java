@@ -0,0 +1,82 @@
+package com.example.crudtask.benchmark;
+
+import com.example.crudtask.config.JwtUtil;
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочное сравнение потоков Tomcat: платформенных (пул ограничен
+ * server.tomcat.threads.max) и виртуальных. Клиентов больше, чем потоков пула,
+ * поэтому с платформенными потоками запросы ждут в очереди коннектора.
+ * Режим virtual требует Java 21: mvn -Pbenchmark,java21 ...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(128)
+@Fork(value = 1, jvmArgs = {"-Xmx1g", "-Djdk.tracePinnedThreads=short"})
+public class ServletThreadsBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    // user — чтение пользователя (JDBC), login — проверка пароля BCrypt
+    @Param({"user", "login"})
+    public String endpoint;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Виртуальные потоки требуют Java 21, запущено на " + Runtime.version());
+        }
+        context = BenchmarkApplication.start("servletbench",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--server.tomcat.threads.max=32");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        User user = context.getBean(UserDAO.class).findByEmail("ivanov@mail.com");
+        String token = context.getBean(JwtUtil.class).generateToken(user);
+        request = "login".equals(endpoint)
+                ? HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"username\":\"ivanov@mail.com\",\"password\":\"password123\"}"))
+                        .build()
+                : HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users/" + user.getId()))
+                        .header("Authorization", "Bearer " + token)
+                        .GET()
+                        .build();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int request() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.crudtask.benchmark;
+
+import com.example.crudtask.entity.UserPrincipal;
+import com.example.crudtask.service.impl.TransferPipeline;
+import com.example.crudtask.service.impl.TransferService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Переводы из нескольких потоков между небольшим числом счетов:
+ * чем меньше счетов, тем выше конкуренция за одни и те же строки.
+ * В режиме pipeline переводы идут через очередь и выполняются пачками,
+ * в режиме optimistic — без блокировок, с проверкой версии счета и повтором.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class TransferBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"2", "16", "256"})
+    public int accounts;
+
+    @Param({"sync", "pipeline", "optimistic"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private TransferService transferService;
+    private TransferPipeline transferPipeline;
+    private List<UserPrincipal> principals;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("transferbench",
+                "--transfer.pipeline.enabled=" + "pipeline".equals(mode),
+                "--transfer.concurrency=" + ("optimistic".equals(mode) ? "optimistic" : "locking"));
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkApplication.seedUsers(jdbc, accounts, "1000000000.00");
+        principals = BenchmarkApplication.seededPrincipals(jdbc, accounts);
+        transferService = context.getBean(TransferService.class);
+        transferPipeline = context.getBean(TransferPipeline.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts);
+        int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+
+        UserPrincipal sender = principals.get(from);
+        BenchmarkApplication.authenticate(sender);
+        if (transferPipeline.isEnabled()) {
+            return transferPipeline.submit(sender.getId(), principals.get(to).getId(), AMOUNT).join();
+        }
+        return transferService.transferMoney(sender.getId(), principals.get(to).getId(), AMOUNT);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.crudtask.benchmark;
+
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.EmailData;
+import com.example.crudtask.entity.PhoneData;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.UserPrincipal;
+import com.example.crudtask.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * updateUser с большими наборами телефонов и email. Вызовы чередуют два
+ * пересекающихся наполовину набора, чтобы каждый вызов что-то менял.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class UpdateUserBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int contacts;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserPrincipal principal;
+    private String password;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("updateuserbench");
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkApplication.seedUsers(jdbc, 1, "1000.00");
+        principal = BenchmarkApplication.seededPrincipals(jdbc, 1).get(0);
+        password = context.getBean(UserDAO.class).findById(principal.getId()).orElseThrow().getPassword();
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User updateUser() {
+        BenchmarkApplication.authenticate(principal);
+        int offset = (round++ % 2) * contacts / 2;
+
+        Set<PhoneData> phones = new HashSet<>();
+        Set<EmailData> emails = new HashSet<>();
+        for (int i = offset; i < offset + contacts; i++) {
+            phones.add(new PhoneData(String.valueOf(80000000000L + i)));
+            emails.add(new EmailData("contact" + i + "@update.bench"));
+        }
+
+        User updated = new User();
+        updated.setName("Пользователь " + round);
+        updated.setPassword(password);
+        updated.setPhones(phones);
+        updated.setEmails(emails);
+        return userService.updateUser(principal.getId(), updated);
+    }
+}
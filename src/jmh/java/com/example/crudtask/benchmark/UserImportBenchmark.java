@@ -0,0 +1,78 @@
+package com.example.crudtask.benchmark;
+
+import com.example.crudtask.entity.UserImportReport;
+import com.example.crudtask.service.ContactUniquenessFilter;
+import com.example.crudtask.service.impl.UserImportParser;
+import com.example.crudtask.service.impl.UserImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Импорт CSV целиком. С готовыми хешами видна стоимость разбора и вставки,
+ * с открытыми паролями — стоимость BCrypt на пуле.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class UserImportBenchmark {
+
+    // С открытыми паролями имеет смысл запускать с -p rows=1000: BCrypt стоит десятки мс на строку
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"hashed", "plain"})
+    public String passwords;
+
+    private ConfigurableApplicationContext context;
+    private UserImportService userImportService;
+    private JdbcTemplate jdbc;
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("importbench");
+        userImportService = context.getBean(UserImportService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        String password = "hashed".equals(passwords)
+                ? context.getBean(BCryptPasswordEncoder.class).encode("secret")
+                : "secret";
+        StringBuilder builder = new StringBuilder("name,dateOfBirth,password,emails,phones,initialBalance\n");
+        for (int i = 0; i < rows; i++) {
+            builder.append("Импорт ").append(i).append(",1990-01-01,").append(password)
+                    .append(",import").append(i).append("@bench.local,").append(71000000000L + i)
+                    .append(",100.00\n");
+        }
+        csv = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearImportedUsers() {
+        jdbc.update("UPDATE user_table SET account_id = NULL WHERE user_email LIKE 'import%'");
+        jdbc.update("DELETE FROM account WHERE user_id IN (SELECT id FROM user_table WHERE user_email LIKE 'import%')");
+        jdbc.update("DELETE FROM email_data WHERE email LIKE 'import%'");
+        jdbc.update("DELETE FROM phone_data WHERE user_id IN (SELECT id FROM user_table WHERE user_email LIKE 'import%')");
+        jdbc.update("DELETE FROM user_table WHERE user_email LIKE 'import%'");
+        // Удаленные значения остаются в фильтре Блума и давали бы ложные срабатывания
+        context.getBean(ContactUniquenessFilter.class).rebuild();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserImportReport importCsv() {
+        return userImportService.importUsers(new ByteArrayInputStream(csv), UserImportParser.Format.CSV);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.crudtask.benchmark;
+
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.UserDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class UserSearchBenchmark {
+
+    @Param({"10000", "100000"})
+    public int users;
+
+    private ConfigurableApplicationContext context;
+    private UserDAO userDAO;
+    private Pageable firstPage;
+    private String phone;
+    private String email;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("searchbench");
+        BenchmarkApplication.seedUsers(context.getBean(JdbcTemplate.class), users, "1000.00");
+        userDAO = context.getBean(UserDAO.class);
+        firstPage = PageRequest.of(0, 20, Sort.by("id").ascending());
+
+        long middle = users / 2;
+        phone = String.valueOf(70000000000L + middle);
+        email = "user" + middle + BenchmarkApplication.EMAIL_DOMAIN;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<UserDto> byNamePrefix() {
+        return userDAO.findUsersByFilters(Optional.empty(), Optional.empty(),
+                Optional.of("Пользователь 99"), Optional.empty(), firstPage);
+    }
+
+    @Benchmark
+    public Page<UserDto> byDateOfBirth() {
+        return userDAO.findUsersByFilters(Optional.of(LocalDate.of(2000, 1, 1)), Optional.empty(),
+                Optional.empty(), Optional.empty(), firstPage);
+    }
+
+    @Benchmark
+    public Page<UserDto> byPhone() {
+        return userDAO.findUsersByFilters(Optional.empty(), Optional.of(phone),
+                Optional.empty(), Optional.empty(), firstPage);
+    }
+
+    @Benchmark
+    public Page<UserDto> byEmail() {
+        return userDAO.findUsersByFilters(Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.of(email), firstPage);
+    }
+}
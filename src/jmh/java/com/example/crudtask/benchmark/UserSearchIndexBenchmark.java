@@ -0,0 +1,80 @@
+package com.example.crudtask.benchmark;
+
+import com.example.crudtask.entity.UserDto;
+import com.example.crudtask.service.UserSearchIndex;
+import com.example.crudtask.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск через сервис целиком (фильтры + контакты страницы) с индексом в памяти и без него.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class UserSearchIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int users;
+
+    @Param({"true", "false"})
+    public boolean index;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private String phone;
+    private String email;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("searchindexbench", "--users.index.enabled=" + index);
+        BenchmarkApplication.seedUsers(context.getBean(JdbcTemplate.class), users, "1000.00");
+        userService = context.getBean(UserService.class);
+        if (index) {
+            // Пользователи вставлены в обход сервиса, поэтому индекс перестраивается явно
+            context.getBean(UserSearchIndex.class).rebuild();
+        }
+
+        long middle = users / 2;
+        phone = String.valueOf(70000000000L + middle);
+        email = "user" + middle + BenchmarkApplication.EMAIL_DOMAIN;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<UserDto> byNamePrefix() {
+        return userService.searchUsers(Optional.empty(), Optional.empty(),
+                Optional.of("Пользователь 99"), Optional.empty(), 0, 20);
+    }
+
+    @Benchmark
+    public Page<UserDto> byDateOfBirth() {
+        return userService.searchUsers(Optional.of(LocalDate.of(2000, 1, 1)), Optional.empty(),
+                Optional.empty(), Optional.empty(), 0, 20);
+    }
+
+    @Benchmark
+    public Page<UserDto> byPhone() {
+        return userService.searchUsers(Optional.empty(), Optional.of(phone),
+                Optional.empty(), Optional.empty(), 0, 20);
+    }
+
+    @Benchmark
+    public Page<UserDto> byEmail() {
+        return userService.searchUsers(Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.of(email), 0, 20);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.crudtask.config;
+
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.EmailData;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.UserPrincipal;
+import com.example.crudtask.service.TokenVersionCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Путь запроса через JwtRequestFilter: прежняя схема, в которой ключ и парсер
+ * собирались заново и токен разбирался трижды, против одного разбора.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "your-secret-key-really-long-at-least-256-bits-long-xyz";
+
+    private JwtUtil jwtUtil;
+    private TokenVersionCache tokenVersionCache;
+    private JwtRequestFilter filter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        UserDAO userDAO = Mockito.mock(UserDAO.class);
+        Mockito.when(userDAO.findTokenVersionById(1L)).thenReturn(0);
+
+        jwtUtil = new JwtUtil();
+        tokenVersionCache = new TokenVersionCache(userDAO, Runnable::run, false, 10_000, 300);
+        filter = new JwtRequestFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "tokenVersionCache", tokenVersionCache);
+
+        User user = new User();
+        user.setId(1L);
+        user.addEmail(new EmailData("bench@mail.com"));
+        token = jwtUtil.generateToken(user);
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void legacyFilterPath(Blackhole blackhole) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader("Authorization", "Bearer " + token);
+        String jwt = request.getHeader("Authorization").substring(7);
+
+        Claims claims = legacyParse(jwt);
+        String username = claims.getSubject();
+        UserPrincipal principal = jwtUtil.toPrincipal(claims);
+        boolean valid = legacyParse(jwt).getSubject().equals(username)
+                && !legacyParse(jwt).getExpiration().before(new Date());
+        if (valid && tokenVersionCache.isCurrent(principal)) {
+            UsernamePasswordAuthenticationToken authentication =
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Benchmark
+    public void singleParseFilterPath(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Benchmark
+    public Claims parseOnce() {
+        return jwtUtil.extractClaims(token);
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -4,6 +4,7 @@ import com.example.crudtask.dao.AccountDAO;
 import com.example.crudtask.dao.UserDAO;
 import com.example.crudtask.entity.Account;
 import com.example.crudtask.entity.EmailData;
+import com.example.crudtask.entity.Money;
 import com.example.crudtask.entity.PhoneData;
 import com.example.crudtask.entity.User;
 import jakarta.annotation.PostConstruct;
@@ -12,7 +13,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Set;
 
@@ -46,17 +46,17 @@ public class DataInitializer {
         }
 
         createUser("Иван Иванов", LocalDate.of(1993, 5, 1), "password123",
-                Set.of("79207865432"), Set.of("ivanov@mail.com"), BigDecimal.valueOf(1000.0));
+                Set.of("79207865432"), Set.of("ivanov@mail.com"), Money.of("1000.00"));
 
         createUser("Петр Петров", LocalDate.of(1990, 8, 15), "password456",
-                Set.of("79207865433"), Set.of("petrov@mail.com"), BigDecimal.valueOf(1500.0));
+                Set.of("79207865433"), Set.of("petrov@mail.com"), Money.of("1500.00"));
 
         createUser("Светлана Светлова", LocalDate.of(1988, 3, 20), "password789",
-                Set.of("79207865434"), Set.of("svetlova@mail.com"), BigDecimal.valueOf(2000.0));
+                Set.of("79207865434"), Set.of("svetlova@mail.com"), Money.of("2000.00"));
     }
 
     private void createUser(String name, LocalDate dateOfBirth, String password,
-                            Set<String> phoneNumbers, Set<String> emails, BigDecimal initialBalance) {
+                            Set<String> phoneNumbers, Set<String> emails, Money initialBalance) {
 
         BCryptPasswordEncoder passwordEncoder = securityConfig.passwordEncoder();
         String encodedPassword = passwordEncoder.encode(password);
@@ -1,21 +1,20 @@
 package com.example.crudtask.config;
 
-import com.example.crudtask.service.CustomUserDetailsService;
+import com.example.crudtask.entity.UserPrincipal;
+import com.example.crudtask.service.TokenVersionCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
@@ -23,7 +22,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
     @Autowired
-    private CustomUserDetailsService customUserDetailsService;
+    private TokenVersionCache tokenVersionCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -32,15 +31,17 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         if (token != null && token.startsWith("Bearer ")) {
             try {
-                String jwt = token.substring(7);
-                String username = jwtUtil.extractUsername(jwt);
+                // Подпись и срок действия проверяются один раз при разборе,
+                // дальше используются уже проверенные claims
+                Claims claims = jwtUtil.extractClaims(token.substring(7));
+                String username = claims.getSubject();
 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+                    UserPrincipal principal = jwtUtil.toPrincipal(claims);
 
-                    if (jwtUtil.validateToken(jwt, username)) {
+                    if (principal != null && jwtUtil.validateClaims(claims, username) && tokenVersionCache.isCurrent(principal)) {
                         UsernamePasswordAuthenticationToken authentication =
-                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(authentication);
                     }
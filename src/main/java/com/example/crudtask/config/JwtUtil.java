@@ -1,8 +1,11 @@
 package com.example.crudtask.config;
 
 
-import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.UserPrincipal;
+import io.micrometer.core.annotation.Timed;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -13,24 +16,24 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
 import java.util.Date;
 
 @Component
 public class JwtUtil {
     private static String secretKey = "your-secret-key-really-long-at-least-256-bits-long-xyz";
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String TOKEN_VERSION_CLAIM = "ver";
 
-    private final UserDAO userDAO;
-
-    public JwtUtil(UserDAO userDAO) {
-        this.userDAO = userDAO;
-    }
-
-    public String generateToken(String username) {
-        byte[] keyBytes = secretKey.getBytes();
-        var key = Keys.hmacShaKeyFor(keyBytes);
+    private final SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
 
+    @Timed("crudtask.jwt.sign")
+    public String generateToken(User user) {
         return Jwts.builder()
-                .setSubject(username)
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60))
                 .signWith(key, SignatureAlgorithm.HS256)
@@ -42,24 +45,30 @@ public class JwtUtil {
         return claims.getSubject();
     }
 
+    @Timed("crudtask.jwt.parse")
     public Claims extractClaims(String token) {
-        byte[] keyBytes = secretKey.getBytes();
-        var key = Keys.hmacShaKeyFor(keyBytes);
-
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
+    public UserPrincipal toPrincipal(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        Number tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        if (userId == null || tokenVersion == null) {
+            return null;
+        }
+        return new UserPrincipal(userId.longValue(), claims.getSubject(), tokenVersion.intValue());
+    }
+
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
     public boolean validateToken(String token, String username) {
-        String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return validateClaims(extractClaims(token), username);
+    }
+
+    public boolean validateClaims(Claims claims, String username) {
+        return claims.getSubject().equals(username) && !isTokenExpired(claims);
     }
 
     public byte[] decodeSecretKey(String encodedSecret) {
@@ -70,6 +79,18 @@ public class JwtUtil {
         return Encoders.BASE64URL.encode(key);
     }
 
+    public static Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof UserPrincipal) {
+            return ((UserPrincipal) principal).getId();
+        }
+        return null;
+    }
+
     public static String getCurrentUsername() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null) {
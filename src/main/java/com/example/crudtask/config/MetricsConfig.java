@@ -0,0 +1,79 @@
+package com.example.crudtask.config;
+
+import com.example.crudtask.service.ContactUniquenessFilter;
+import com.example.crudtask.service.TokenVersionCache;
+import com.example.crudtask.service.impl.LedgerJournal;
+import com.example.crudtask.service.impl.OptimisticRetry;
+import com.example.crudtask.service.impl.TransferPipeline;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Метрики приложения. Время операций, помеченных {@code @Timed}, пишет {@link TimedAspect};
+ * счетчики сервисов, которые те уже ведут сами, публикуются здесь без изменения сервисов.
+ * Гистограммы для перцентилей включаются в application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder serviceMetrics(TokenVersionCache tokenVersionCache, ContactUniquenessFilter contactUniquenessFilter,
+                                      LedgerJournal ledgerJournal, TransferPipeline transferPipeline,
+                                      OptimisticRetry optimisticRetry) {
+        return registry -> {
+            FunctionCounter.builder("crudtask.token.cache.requests", tokenVersionCache, cache -> cache.stats().hitCount())
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("crudtask.token.cache.requests", tokenVersionCache, cache -> cache.stats().missCount())
+                    .tag("result", "miss").register(registry);
+            Gauge.builder("crudtask.token.cache.size", tokenVersionCache, TokenVersionCache::size).register(registry);
+
+            bindGuard(registry, "email", contactUniquenessFilter.emails());
+            bindGuard(registry, "phone", contactUniquenessFilter.phones());
+
+            counter(registry, "crudtask.ledger.journal.entries", ledgerJournal, LedgerJournal::getWrittenEntries);
+            counter(registry, "crudtask.ledger.journal.commits", ledgerJournal, LedgerJournal::getCommits);
+
+            counter(registry, "crudtask.transfer.pipeline.batches", transferPipeline, TransferPipeline::getBatches);
+            counter(registry, "crudtask.transfer.pipeline.completed", transferPipeline, TransferPipeline::getCompletedTransfers);
+            counter(registry, "crudtask.transfer.pipeline.rejected", transferPipeline, TransferPipeline::getRejectedSubmissions);
+            Gauge.builder("crudtask.transfer.pipeline.queue", transferPipeline, TransferPipeline::getQueueSize).register(registry);
+
+            counter(registry, "crudtask.transfer.optimistic.attempts", optimisticRetry, OptimisticRetry::getAttempts);
+            counter(registry, "crudtask.transfer.optimistic.conflicts", optimisticRetry, OptimisticRetry::getConflicts);
+            counter(registry, "crudtask.transfer.optimistic.exhausted", optimisticRetry, OptimisticRetry::getExhausted);
+        };
+    }
+
+    private static void bindGuard(MeterRegistry registry, String contact, ContactUniquenessFilter.Guard guard) {
+        FunctionCounter.builder("crudtask.contacts.bloom.skipped-queries", guard, ContactUniquenessFilter.Guard::getSkippedQueries)
+                .tag("contact", contact).register(registry);
+        FunctionCounter.builder("crudtask.contacts.bloom.false-positives", guard, ContactUniquenessFilter.Guard::getFalsePositives)
+                .tag("contact", contact).register(registry);
+        FunctionCounter.builder("crudtask.contacts.bloom.confirmed-duplicates", guard, ContactUniquenessFilter.Guard::getConfirmedDuplicates)
+                .tag("contact", contact).register(registry);
+        Gauge.builder("crudtask.contacts.bloom.elements", guard, ContactUniquenessFilter.Guard::getApproximateElementCount)
+                .tag("contact", contact).register(registry);
+        Gauge.builder("crudtask.contacts.bloom.bits", guard, ContactUniquenessFilter.Guard::getBitSize)
+                .tag("contact", contact).register(registry);
+        Gauge.builder("crudtask.contacts.bloom.fpp.expected", guard, ContactUniquenessFilter.Guard::getExpectedFalsePositiveRate)
+                .tag("contact", contact).register(registry);
+        Gauge.builder("crudtask.contacts.bloom.fpp.observed", guard, ContactUniquenessFilter.Guard::getObservedFalsePositiveRate)
+                .tag("contact", contact).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> count) {
+        FunctionCounter.builder(name, source, count).register(registry);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.crudtask.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Проверяет при старте, что в схеме есть индексы, на которые опираются поиск
+ * и проверки уникальности. Без них запросы молча переходят на полный просмотр
+ * таблиц, поэтому приложение лучше не запускать вовсе.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "schema.index-check.enabled", havingValue = "true", matchIfMissing = true)
+public class SchemaIndexVerifier implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaIndexVerifier.class);
+
+    private static final List<RequiredIndex> REQUIRED_INDEXES = List.of(
+            new RequiredIndex("email_data", "email", true),
+            new RequiredIndex("phone_data", "phone", true),
+            new RequiredIndex("user_table", "name", false),
+            new RequiredIndex("user_table", "date_of_birth", false)
+    );
+
+    private final DataSource dataSource;
+
+    public SchemaIndexVerifier(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        verify();
+    }
+
+    public void verify() throws SQLException {
+        List<String> missing = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (RequiredIndex index : REQUIRED_INDEXES) {
+                if (!hasIndex(connection, metaData, index)) {
+                    missing.add(index.toString());
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("В схеме нет обязательных индексов: " + String.join(", ", missing));
+        }
+        log.info("Обязательные индексы на месте: {}", REQUIRED_INDEXES);
+    }
+
+    private boolean hasIndex(Connection connection, DatabaseMetaData metaData, RequiredIndex index) throws SQLException {
+        String table = identifier(metaData, index.table);
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, index.unique, true)) {
+            while (rs.next()) {
+                // Индекс подходит, только если нужная колонка в нем первая
+                if (rs.getShort("ORDINAL_POSITION") == 1 && index.column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase(Locale.ROOT);
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+        return name;
+    }
+
+    private static final class RequiredIndex {
+        private final String table;
+        private final String column;
+        private final boolean unique;
+
+        private RequiredIndex(String table, String column, boolean unique) {
+            this.table = table;
+            this.column = column;
+            this.unique = unique;
+        }
+
+        @Override
+        public String toString() {
+            return (unique ? "unique " : "") + table + "(" + column + ")";
+        }
+    }
+}
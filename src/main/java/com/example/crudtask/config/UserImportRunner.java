@@ -0,0 +1,55 @@
+package com.example.crudtask.config;
+
+import com.example.crudtask.entity.UserImportReport;
+import com.example.crudtask.service.impl.UserImportParser;
+import com.example.crudtask.service.impl.UserImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Импорт из файла при запуске:
+ * {@code java -jar crudTask.jar --users.import.file=users.csv [--users.import.format=ndjson]}.
+ * После импорта приложение завершается; код выхода 2, если были отклоненные строки.
+ */
+@Component
+@ConditionalOnProperty(name = "users.import.file")
+public class UserImportRunner implements ApplicationRunner {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${users.import.file}")
+    private String file;
+
+    @Value("${users.import.format:}")
+    private String format;
+
+    @Value("${users.import.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        UserImportParser.Format importFormat = UserImportParser.Format.of(format.isBlank() ? file : format);
+        UserImportReport report;
+        try (InputStream input = Files.newInputStream(Path.of(file))) {
+            report = userImportService.importUsers(input, importFormat);
+        }
+        if (exitWhenDone) {
+            int exitCode = report.getRejectedRows() == 0 ? 0 : 2;
+            System.exit(SpringApplication.exit(context, () -> exitCode));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.crudtask.controller;
 import com.example.crudtask.config.JwtUtil;
 import com.example.crudtask.entity.AuthenticationRequest;
 import com.example.crudtask.entity.AuthenticationResponse;
+import com.example.crudtask.entity.User;
 import com.example.crudtask.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -39,8 +40,7 @@ public class AuthController {
                 new UsernamePasswordAuthenticationToken(authenticationRequest.getUsername(), authenticationRequest.getPassword())
         );
 
-        String username = authentication.getName();
-        String jwt = jwtUtil.generateToken(username);
+        String jwt = jwtUtil.generateToken((User) authentication.getPrincipal());
 
         return ResponseEntity.ok(new AuthenticationResponse(jwt));
     }
@@ -1,6 +1,7 @@
 package com.example.crudtask.controller;
 
 import com.example.crudtask.config.JwtUtil;
+import com.example.crudtask.service.impl.TransferPipeline;
 import com.example.crudtask.service.impl.TransferService;
 import com.example.crudtask.service.impl.UserServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,6 +15,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/transfer")
@@ -22,6 +25,8 @@ public class TransferController {
     @Autowired
     private TransferService transferService;
     @Autowired
+    private TransferPipeline transferPipeline;
+    @Autowired
     private UserServiceImpl userService;
 
     @Autowired
@@ -29,22 +34,40 @@ public class TransferController {
 
     @Operation(
             summary = "Перевести деньги от одного пользователя другому",
-            description = "Этот метод позволяет перевести деньги от текущего пользователя к другому пользователю.",
+            description = "Этот метод позволяет перевести деньги от текущего пользователя к другому пользователю. " +
+                    "В конвейерном режиме ответ приходит после фиксации пачки, в которую попал перевод.",
             tags = {"Transfer"}
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Операция перевода успешно выполнена", content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "400", description = "Неверные параметры перевода", content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "401", description = "Не авторизован", content = @Content(mediaType = "application/json")),
-            @ApiResponse(responseCode = "404", description = "Пользователь не найден", content = @Content(mediaType = "application/json"))
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "429", description = "Очередь переводов переполнена", content = @Content(mediaType = "application/json"))
     })
     @PostMapping
-    public String transferMoney(
+    public CompletableFuture<String> transferMoney(
             @Parameter(description = "ID получателя перевода", required = true) @RequestParam Long transferToId,
-            @Parameter(description = "Сумма перевода", required = true) @RequestParam BigDecimal value) {
+            @Parameter(description = "Сумма перевода", required = true) @RequestParam BigDecimal value,
+            @Parameter(description = "Ключ идемпотентности: повтор запроса с тем же ключом не выполняет перевод повторно")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
         Long transferFromId = userService.getCurrentUserId();
 
-        return transferService.transferMoney(transferFromId, transferToId, value);
+        // Переводы с ключом идемпотентности выполняются синхронно: ключ фиксируется вместе с переводом
+        if (idempotencyKey == null && transferPipeline.isEnabled()) {
+            return transferPipeline.submit(transferFromId, transferToId, value);
+        }
+        if (idempotencyKey == null) {
+            return CompletableFuture.completedFuture(transferService.transferMoney(transferFromId, transferToId, value));
+        }
+        return CompletableFuture.completedFuture(
+                transferService.transferMoney(transferFromId, transferToId, value, idempotencyKey));
+    }
+
+    // Конвейер не принял перевод: очередь переполнена или приложение останавливается
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
     }
 }
\ No newline at end of file
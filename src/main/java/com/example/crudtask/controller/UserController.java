@@ -1,11 +1,17 @@
 package com.example.crudtask.controller;
 
 import com.example.crudtask.config.JwtUtil;
-import com.example.crudtask.entity.Account;
-import com.example.crudtask.entity.EmailData;
-import com.example.crudtask.entity.PhoneData;
+import com.example.crudtask.entity.AccountView;
+import com.example.crudtask.entity.EmailView;
+import com.example.crudtask.entity.PhoneView;
 import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.UserDto;
+import com.example.crudtask.entity.UserKeysetPage;
 import com.example.crudtask.service.impl.UserServiceImpl;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,9 +19,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
@@ -25,9 +35,13 @@ import java.util.Optional;
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final UserServiceImpl userService;
     @Autowired
     private JwtUtil jwtUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Autowired
     public UserController(UserServiceImpl userService) {
@@ -40,10 +54,10 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "Пользователь не найден")
     })
     @GetMapping("/{userId}")
-    public ResponseEntity<User> getUser(
+    public ResponseEntity<UserDto> getUser(
             @Parameter(description = "ID пользователя для получения информации") @PathVariable Long userId) {
         User user = userService.getUserById(userId).orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok(UserDto.from(user));
     }
 
 
@@ -53,9 +67,9 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "Пользователь не найден")
     })
     @GetMapping("/{userId}/phones")
-    public ResponseEntity<List<PhoneData>> getUserPhones(
+    public ResponseEntity<List<PhoneView>> getUserPhones(
             @Parameter(description = "ID пользователя для получения номеров телефонов") @PathVariable Long userId) {
-        List<PhoneData> phones = userService.getUserPhones(userId);
+        List<PhoneView> phones = userService.getUserPhones(userId);
         return ResponseEntity.ok(phones);
     }
 
@@ -65,9 +79,9 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "Пользователь не найден")
     })
     @GetMapping("/{userId}/emails")
-    public ResponseEntity<List<EmailData>> getUserEmails(
+    public ResponseEntity<List<EmailView>> getUserEmails(
             @Parameter(description = "ID пользователя для получения адресов электронной почты") @PathVariable Long userId) {
-        List<EmailData> emails = userService.getUserEmails(userId);
+        List<EmailView> emails = userService.getUserEmails(userId);
         return ResponseEntity.ok(emails);
     }
 
@@ -77,9 +91,9 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "Пользователь не найден")
     })
     @GetMapping("/{userId}/account")
-    public ResponseEntity<Account> getUserAccount(
+    public ResponseEntity<AccountView> getUserAccount(
             @Parameter(description = "ID пользователя для получения информации о счете") @PathVariable Long userId) {
-        Account account = userService.getUserAccount(userId);
+        AccountView account = userService.getUserAccount(userId);
         return ResponseEntity.ok(account);
     }
 
@@ -89,8 +103,8 @@ public class UserController {
             @ApiResponse(responseCode = "204", description = "Пользователи не найдены")
     })
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
+    public ResponseEntity<List<UserDto>> getAllUsers() {
+        List<UserDto> users = userService.getAllUsers();
         if (users.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
@@ -98,6 +112,28 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @Operation(summary = "Выгрузить всех пользователей потоком",
+            description = "Пользователи пишутся в ответ по одному JSON-объекту на строку (NDJSON) по мере чтения из базы")
+    @ApiResponse(responseCode = "200", description = "Выгрузка пользователей")
+    @GetMapping(produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                userService.exportUsers(user -> {
+                    try {
+                        writer.writeValue(generator, user);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
 
     @Operation(summary = "Обновить информацию о пользователе", description = "Обновить информацию о существующем пользователе")
     @ApiResponses(value = {
@@ -105,9 +141,9 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "Пользователь не найден")
     })
     @PutMapping("/{userId}")
-    public ResponseEntity<User> updateUser(@PathVariable Long userId, @RequestBody User updatedUser) {
+    public ResponseEntity<UserDto> updateUser(@PathVariable Long userId, @RequestBody User updatedUser) {
         User user = userService.updateUser(userId, updatedUser);
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok(UserDto.from(user));
     }
 
     @Operation(summary = "Удалить пользователя", description = "Удалить пользователя по его ID")
@@ -220,7 +256,7 @@ public class UserController {
             @ApiResponse(responseCode = "204", description = "Пользователи не найдены")
     })
     @GetMapping("/search")
-    public ResponseEntity<Page<User>> searchUsers(
+    public ResponseEntity<Page<UserDto>> searchUsers(
             @RequestParam(value = "dateOfBirth", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateOfBirth,
             @RequestParam(value = "phone", required = false) String phone,
             @RequestParam(value = "name", required = false) String name,
@@ -228,7 +264,7 @@ public class UserController {
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "10") int size
     ) {
-        Page<User> users = userService.searchUsers(
+        Page<UserDto> users = userService.searchUsers(
                 Optional.ofNullable(dateOfBirth),
                 Optional.ofNullable(phone),
                 Optional.ofNullable(name),
@@ -242,4 +278,34 @@ public class UserController {
         }
         return ResponseEntity.ok(users);
     }
+
+    @Operation(summary = "Поиск пользователей с курсорной пагинацией",
+            description = "Возвращает пользователей с id больше lastId. Для следующей страницы передайте lastId из ответа")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Страница пользователей найдена"),
+            @ApiResponse(responseCode = "204", description = "Пользователи не найдены")
+    })
+    @GetMapping("/search/keyset")
+    public ResponseEntity<UserKeysetPage> searchUsersAfter(
+            @RequestParam(value = "dateOfBirth", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateOfBirth,
+            @RequestParam(value = "phone", required = false) String phone,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "email", required = false) String email,
+            @Parameter(description = "id последнего пользователя предыдущей страницы") @RequestParam(value = "lastId", required = false) Long lastId,
+            @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        UserKeysetPage users = userService.searchUsersAfter(
+                Optional.ofNullable(dateOfBirth),
+                Optional.ofNullable(phone),
+                Optional.ofNullable(name),
+                Optional.ofNullable(email),
+                lastId,
+                size
+        );
+
+        if (users.getContent().isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(users);
+    }
 }
@@ -0,0 +1,43 @@
+package com.example.crudtask.controller;
+
+import com.example.crudtask.entity.UserImportReport;
+import com.example.crudtask.service.impl.UserImportParser;
+import com.example.crudtask.service.impl.UserImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+/**
+ * Импорт включается явно (users.import.endpoint-enabled): создавать пользователей
+ * может любой аутентифицированный клиент.
+ */
+@RestController
+@RequestMapping("/api/users/import")
+@ConditionalOnProperty(name = "users.import.endpoint-enabled", havingValue = "true")
+public class UserImportController {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Operation(summary = "Массовый импорт пользователей",
+            description = "Принимает CSV (text/csv) или NDJSON (application/x-ndjson) и читает тело запроса потоком")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Импорт выполнен, отклоненные строки перечислены в отчете"),
+            @ApiResponse(responseCode = "400", description = "Неизвестный формат или некорректный заголовок CSV")
+    })
+    @PostMapping(consumes = {"text/csv", "application/x-ndjson"})
+    public UserImportReport importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        UserImportParser.Format format = UserImportParser.Format.of(MediaType.parseMediaType(contentType).getSubtype());
+        return userImportService.importUsers(body, format);
+    }
+}
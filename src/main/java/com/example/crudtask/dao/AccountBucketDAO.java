@@ -0,0 +1,29 @@
+package com.example.crudtask.dao;
+
+import com.example.crudtask.entity.AccountBucket;
+import com.example.crudtask.entity.Money;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AccountBucketDAO extends JpaRepository<AccountBucket, AccountBucket.Key> {
+
+    @Modifying
+    @Query("UPDATE AccountBucket b SET b.balance = b.balance + :value WHERE b.accountId = :accountId AND b.bucket = :bucket")
+    int credit(@Param("accountId") Long accountId, @Param("bucket") int bucket, @Param("value") Money value);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AccountBucket b WHERE b.accountId = :accountId ORDER BY b.bucket")
+    List<AccountBucket> findAllForUpdate(@Param("accountId") Long accountId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AccountBucket b WHERE b.accountId = :accountId")
+    int deleteByAccount(@Param("accountId") Long accountId);
+}
@@ -1,10 +1,89 @@
 package com.example.crudtask.dao;
 
 import com.example.crudtask.entity.Account;
+import com.example.crudtask.entity.AccountOwner;
+import com.example.crudtask.entity.AccountState;
+import com.example.crudtask.entity.AccountView;
+import com.example.crudtask.entity.Money;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface AccountDAO extends JpaRepository<Account, Long> {
+    String ACCRUED_BALANCE = "ROUND(LEAST(balance * 1.10, initial_balance * 2.07), 2)";
+    // Баланс счета a вместе с корзинами горячего счета
+    String TOTAL_BALANCE = "(a.balance + COALESCE((SELECT SUM(b.balance) FROM AccountBucket b WHERE b.accountId = a.id), 0))";
+
     Account findByUserId(Long userId);
-}
\ No newline at end of file
+
+    @Query("SELECT new com.example.crudtask.entity.AccountDto(a.id, " + TOTAL_BALANCE + ", a.initialBalance) " +
+            "FROM Account a WHERE a.user.id = :userId")
+    AccountView findViewByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT a.id FROM Account a WHERE a.user.id = :userId")
+    Long findIdByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT a.id AS id, a.user.id AS userId, a.bucketCount AS bucketCount FROM Account a WHERE a.user.id = :userId")
+    AccountOwner findOwnerByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT a.id AS id, a.user.id AS userId, a.bucketCount AS bucketCount FROM Account a WHERE a.user.id IN :userIds")
+    List<AccountOwner> findOwnersByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT a.id FROM Account a WHERE a.bucketCount > 0 ORDER BY a.id")
+    List<Long> findBucketedIds();
+
+    @Modifying
+    @Query("UPDATE Account a SET a.bucketCount = :bucketCount WHERE a.id = :id")
+    int updateBucketCount(@Param("id") Long id, @Param("bucketCount") int bucketCount);
+
+    // Строки блокируются в порядке id, как и при списании с зачислением в TransferService
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id AS id, a.balance AS balance, a.version AS version FROM Account a WHERE a.id IN :ids")
+    List<AccountState> findStatesByIds(@Param("ids") Collection<Long> ids);
+
+    // Все изменения баланса увеличивают версию, иначе оптимистичная запись
+    // перезаписала бы их балансом, прочитанным до них
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance - :value, a.version = a.version + 1 " +
+            "WHERE a.id = :id AND a.balance >= :value")
+    int debit(@Param("id") Long id, @Param("value") Money value);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :value, a.version = a.version + 1 WHERE a.id = :id")
+    int credit(@Param("id") Long id, @Param("value") Money value);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = :balance, a.version = a.version + 1 " +
+            "WHERE a.id = :id AND a.version = :version")
+    int updateBalanceIfVersion(@Param("id") Long id, @Param("balance") Money balance, @Param("version") Long version);
+
+    @Modifying
+    @Query(value = "UPDATE account SET balance = " + AccountDAO.ACCRUED_BALANCE + ", version = version + 1 " +
+            "WHERE balance IS NOT NULL AND initial_balance IS NOT NULL " +
+            "AND balance <> " + AccountDAO.ACCRUED_BALANCE, nativeQuery = true)
+    int accrueInterest();
+
+    @Modifying
+    @Query(value = "UPDATE account SET balance = " + AccountDAO.ACCRUED_BALANCE + ", version = version + 1 " +
+            "WHERE id BETWEEN :fromId AND :toId " +
+            "AND balance IS NOT NULL AND initial_balance IS NOT NULL " +
+            "AND balance <> " + AccountDAO.ACCRUED_BALANCE, nativeQuery = true)
+    int accrueInterestInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT MIN(a.id) FROM Account a")
+    Long findMinId();
+
+    @Query("SELECT MAX(a.id) FROM Account a")
+    Long findMaxId();
+}
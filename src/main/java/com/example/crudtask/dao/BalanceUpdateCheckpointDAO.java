@@ -0,0 +1,17 @@
+package com.example.crudtask.dao;
+
+import com.example.crudtask.entity.BalanceUpdateCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BalanceUpdateCheckpointDAO extends JpaRepository<BalanceUpdateCheckpoint, Long> {
+    @Query("SELECT c.chunkStart FROM BalanceUpdateCheckpoint c WHERE c.runId = :runId")
+    List<Long> findChunkStartsByRunId(@Param("runId") Long runId);
+
+    boolean existsByRunIdAndChunkStart(Long runId, Long chunkStart);
+}
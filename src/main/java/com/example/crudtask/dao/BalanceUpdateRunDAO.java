@@ -0,0 +1,12 @@
+package com.example.crudtask.dao;
+
+import com.example.crudtask.entity.BalanceUpdateRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BalanceUpdateRunDAO extends JpaRepository<BalanceUpdateRun, Long> {
+    Optional<BalanceUpdateRun> findFirstByFinishedAtIsNullOrderByIdDesc();
+}
@@ -1,11 +1,25 @@
 package com.example.crudtask.dao;
 
 import com.example.crudtask.entity.EmailData;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface EmailDataDAO extends JpaRepository<EmailData, Long> {
     List<EmailData> findByUserId(Long userId);
     boolean existsByEmail(String email);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT e.email FROM EmailData e")
+    Stream<String> streamAllEmails();
+
+    @Query("SELECT e.email FROM EmailData e WHERE e.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
 }
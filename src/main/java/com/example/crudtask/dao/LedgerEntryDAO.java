@@ -0,0 +1,45 @@
+package com.example.crudtask.dao;
+
+import com.example.crudtask.entity.LedgerDrift;
+import com.example.crudtask.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LedgerEntryDAO extends JpaRepository<LedgerEntry, Long> {
+    // Начальный баланс хранится как Money, в арифметике запроса он приводится к числу
+    String LEDGER_BALANCE = "COALESCE(CAST(a.initialBalance AS BigDecimal), 0) + COALESCE(SUM(l.amount), 0)";
+    // Корзины горячего счета входят в его баланс: зачисления в них журналируются на счет
+    String LEDGER_DRIFT = "SELECT new com.example.crudtask.entity.LedgerDrift(a.id, " + AccountDAO.TOTAL_BALANCE + ", " +
+            LEDGER_BALANCE + ") " +
+            "FROM Account a LEFT JOIN LedgerEntry l ON l.accountId = a.id " +
+            "WHERE a.balance IS NOT NULL ";
+    String LEDGER_DRIFT_GROUPING = "GROUP BY a.id, a.balance, a.initialBalance " +
+            "HAVING " + AccountDAO.TOTAL_BALANCE + " <> " + LEDGER_BALANCE;
+
+    // Начисление процентов пишет записи одним запросом в своей транзакции.
+    // FOR UPDATE блокирует счета до следующего за ним UPDATE, чтобы перевод между
+    // ними не изменил баланс, от которого посчитана сумма записи
+    String INTEREST_ENTRIES = "INSERT INTO ledger_entry (account_id, entry_type, amount, created_at) " +
+            "SELECT id, 'INTEREST', " + AccountDAO.ACCRUED_BALANCE + " - balance, CURRENT_TIMESTAMP FROM account " +
+            "WHERE balance IS NOT NULL AND initial_balance IS NOT NULL " +
+            "AND balance <> " + AccountDAO.ACCRUED_BALANCE;
+
+    List<LedgerEntry> findByAccountIdOrderById(Long accountId);
+
+    @Query(LEDGER_DRIFT + LEDGER_DRIFT_GROUPING)
+    List<LedgerDrift> findDrifts();
+
+    @Modifying
+    @Query(value = INTEREST_ENTRIES + " FOR UPDATE", nativeQuery = true)
+    int appendInterest();
+
+    @Modifying
+    @Query(value = INTEREST_ENTRIES + " AND id BETWEEN :fromId AND :toId FOR UPDATE", nativeQuery = true)
+    int appendInterestInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
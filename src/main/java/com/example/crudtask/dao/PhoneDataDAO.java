@@ -1,9 +1,25 @@
 package com.example.crudtask.dao;
 
 import com.example.crudtask.entity.PhoneData;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface PhoneDataDAO extends JpaRepository<PhoneData, Long> {
 
     boolean existsByPhone(String phone);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.phone FROM PhoneData p")
+    Stream<String> streamAllPhones();
+
+    @Query("SELECT p.phone FROM PhoneData p WHERE p.phone IN :phones")
+    List<String> findExistingPhones(@Param("phones") Collection<String> phones);
 }
@@ -0,0 +1,43 @@
+package com.example.crudtask.dao;
+
+import com.example.crudtask.entity.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Время аренды везде берется из базы ({@code local datetime}), поэтому
+ * расхождение часов узлов не влияет на то, кто владеет арендой.
+ * Длительности передаются в наносекундах.
+ */
+@Repository
+public interface SchedulerLeaseDAO extends JpaRepository<SchedulerLease, String> {
+
+    // Продлевает свою аренду или забирает истекшую чужую
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.expiresAt = local datetime + :ttl nanosecond " +
+            "WHERE l.name = :name AND (l.owner = :owner OR l.expiresAt < local datetime)")
+    int renew(@Param("name") String name, @Param("owner") String owner, @Param("ttl") long ttl);
+
+    @Modifying
+    @Query("INSERT INTO SchedulerLease (name, owner, expiresAt) VALUES (:name, :owner, local datetime + :ttl nanosecond)")
+    int insert(@Param("name") String name, @Param("owner") String owner, @Param("ttl") long ttl);
+
+    // Запуск разрешен не раньше чем за полпериода до next_run_at, а сам срок сдвигается
+    // на период от прежнего срока, но не меньше чем на период от текущего момента:
+    // запуски одного периода не повторяются, а опоздавший тик не копит пропущенные
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.nextRunAt = " +
+            "CASE WHEN l.nextRunAt IS NULL THEN local datetime + :period nanosecond " +
+            "ELSE greatest(l.nextRunAt, local datetime) + :period nanosecond END " +
+            "WHERE l.name = :name AND l.owner = :owner " +
+            "AND (l.nextRunAt IS NULL OR l.nextRunAt <= local datetime + :halfPeriod nanosecond)")
+    int claimRun(@Param("name") String name, @Param("owner") String owner,
+                 @Param("period") long period, @Param("halfPeriod") long halfPeriod);
+
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.expiresAt = local datetime WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,27 @@
+package com.example.crudtask.dao;
+
+import com.example.crudtask.entity.TransferRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface TransferRequestDAO extends JpaRepository<TransferRequest, TransferRequest.Key> {
+
+    // Настоящая вставка, а не merge: параллельный дубликат ждет на ключе и получает нарушение уникальности
+    @Modifying
+    @Query(value = "INSERT INTO transfer_request (user_id, idempotency_key, transfer_to_id, amount, result, created_at) " +
+            "VALUES (:userId, :key, :transferToId, :amount, :result, :createdAt)", nativeQuery = true)
+    int insert(@Param("userId") Long userId, @Param("key") String key, @Param("transferToId") Long transferToId,
+               @Param("amount") BigDecimal amount, @Param("result") String result,
+               @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("DELETE FROM TransferRequest r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,44 +1,79 @@
 package com.example.crudtask.dao;
 
+import com.example.crudtask.entity.ContactRow;
 import com.example.crudtask.entity.EmailData;
+import com.example.crudtask.entity.EmailView;
 import com.example.crudtask.entity.PhoneData;
+import com.example.crudtask.entity.PhoneView;
 import com.example.crudtask.entity.User;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.example.crudtask.entity.UserDto;
+import com.example.crudtask.entity.UserIndexRow;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserDAO extends JpaRepository<User, Long> {
-    @Query("SELECT p FROM PhoneData p WHERE p.user.id = :userId")
-    List<PhoneData> findUserPhones(Long userId);
-
-    @Query("SELECT e FROM EmailData e WHERE e.user.id = :userId")
-    List<EmailData> findUserEmails(Long userId);
-    @Query("SELECT u FROM User u " +
-            "LEFT JOIN u.phones p " +
-            "LEFT JOIN u.emails e " +
-            "WHERE (:dateOfBirth IS NULL OR u.dateOfBirth > :dateOfBirth) " +
-            "AND (:phone IS NULL OR p.phone = :phone) " +
-            "AND (:name IS NULL OR u.name LIKE CONCAT(:name, '%')) " +
-            "AND (:email IS NULL OR e.email = :email)")
-    Page<User> findUsersByFilters(
-            @Param("dateOfBirth") Optional<LocalDate> dateOfBirth,
-            @Param("phone") Optional<String> phone,
-            @Param("name") Optional<String> name,
-            @Param("email") Optional<String> email,
-            Pageable pageable
-    );
+public interface UserDAO extends JpaRepository<User, Long>, UserSearchDAO {
+    String USER_DTO = "SELECT new com.example.crudtask.entity.UserDto(" +
+            "u.id, u.name, u.dateOfBirth, u.userEmail, a.id, " + AccountDAO.TOTAL_BALANCE + ", a.initialBalance) " +
+            "FROM User u LEFT JOIN u.account a ";
 
+    @EntityGraph(attributePaths = {"phones", "emails", "account"})
+    Optional<User> findWithContactsById(Long id);
+
+    @Query(USER_DTO + "ORDER BY u.id")
+    List<UserDto> findAllDtos();
+
+    @Query("SELECT p.id AS id, p.phone AS phone FROM PhoneData p WHERE p.user.id = :userId ORDER BY p.id")
+    List<PhoneView> findUserPhones(Long userId);
+
+    @Query("SELECT e.id AS id, e.email AS email FROM EmailData e WHERE e.user.id = :userId ORDER BY e.id")
+    List<EmailView> findUserEmails(Long userId);
+
+    // Контакты страницы пользователей загружаются одним запросом на всю страницу
+    @Query("SELECT p FROM PhoneData p WHERE p.user.id IN :userIds ORDER BY p.id")
+    List<PhoneData> findPhonesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT e FROM EmailData e WHERE e.user.id IN :userIds ORDER BY e.id")
+    List<EmailData> findEmailsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query(USER_DTO + "WHERE u.id IN :ids ORDER BY u.id")
+    List<UserDto> findDtosByIds(@Param("ids") Collection<Long> ids);
+
+    // Данные для индекса поиска в памяти
+    @Query("SELECT u.id AS id, u.name AS name, u.dateOfBirth AS dateOfBirth FROM User u")
+    Stream<UserIndexRow> streamIndexRows();
+
+    @Query("SELECT p.user.id AS userId, p.phone AS value FROM PhoneData p")
+    Stream<ContactRow> streamPhoneRows();
+
+    @Query("SELECT e.user.id AS userId, e.email AS value FROM EmailData e")
+    Stream<ContactRow> streamEmailRows();
+
+    @Query("SELECT u.id AS id, u.name AS name, u.dateOfBirth AS dateOfBirth FROM User u WHERE u.id = :id")
+    UserIndexRow findIndexRowById(@Param("id") Long id);
+
+    @Query("SELECT p.phone FROM PhoneData p WHERE p.user.id = :userId")
+    List<String> findPhoneValuesByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT e.email FROM EmailData e WHERE e.user.id = :userId")
+    List<String> findEmailValuesByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Integer findTokenVersionById(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = "emails")
     @Query("SELECT u FROM User u JOIN u.emails e WHERE e.email = :email")
     User findByEmail(@Param("email") String email);
 
+    @EntityGraph(attributePaths = "emails")
     @Query("SELECT u FROM User u JOIN u.phones p WHERE p.phone = :phone")
     User findByPhone(@Param("phone") String phone);
 }
@@ -0,0 +1,32 @@
+package com.example.crudtask.dao;
+
+import com.example.crudtask.entity.UserDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface UserSearchDAO {
+    Page<UserDto> findUsersByFilters(
+            Optional<LocalDate> dateOfBirth,
+            Optional<String> phone,
+            Optional<String> name,
+            Optional<String> email,
+            Pageable pageable
+    );
+
+    List<UserDto> findUsersByFiltersAfter(
+            Optional<LocalDate> dateOfBirth,
+            Optional<String> phone,
+            Optional<String> name,
+            Optional<String> email,
+            Long lastId,
+            Pageable pageable
+    );
+
+    // Построчное чтение для выгрузки: драйвер получает строки порциями по fetchSize
+    Stream<UserDto> streamAllDtos(int fetchSize);
+}
@@ -0,0 +1,102 @@
+package com.example.crudtask.dao;
+
+import com.example.crudtask.entity.UserDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Поиск пользователей. Условие собирается только из заданных фильтров:
+ * конструкция вида (:name IS NULL OR ...) не дает базе использовать индексы
+ * по name, date_of_birth, phone и email.
+ */
+public class UserSearchDAOImpl implements UserSearchDAO {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<UserDto> findUsersByFilters(Optional<LocalDate> dateOfBirth, Optional<String> phone, Optional<String> name,
+                                            Optional<String> email, Pageable pageable) {
+        Map<String, Object> parameters = new HashMap<>();
+        String where = buildFilter(dateOfBirth, phone, name, email, parameters);
+
+        TypedQuery<UserDto> query = entityManager.createQuery(
+                QueryUtils.applySorting(UserDAO.USER_DTO + where, pageable.getSort(), "u"), UserDto.class);
+        parameters.forEach(query::setParameter);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> {
+            TypedQuery<Long> count = entityManager.createQuery("SELECT COUNT(u) FROM User u" + where, Long.class);
+            parameters.forEach(count::setParameter);
+            return count.getSingleResult();
+        });
+    }
+
+    @Override
+    public List<UserDto> findUsersByFiltersAfter(Optional<LocalDate> dateOfBirth, Optional<String> phone, Optional<String> name,
+                                                 Optional<String> email, Long lastId, Pageable pageable) {
+        Map<String, Object> parameters = new HashMap<>();
+        String where = buildFilter(dateOfBirth, phone, name, email, parameters);
+        if (lastId != null) {
+            where += " AND u.id > :lastId";
+            parameters.put("lastId", lastId);
+        }
+
+        TypedQuery<UserDto> query = entityManager.createQuery(UserDAO.USER_DTO + where + " ORDER BY u.id", UserDto.class);
+        parameters.forEach(query::setParameter);
+        query.setMaxResults(pageable.getPageSize());
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<UserDto> streamAllDtos(int fetchSize) {
+        return entityManager.createQuery(UserDAO.USER_DTO + "ORDER BY u.id", UserDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    // Телефоны и email проверяются через EXISTS, а не JOIN: так строки пользователя
+    // не размножаются и count совпадает с числом найденных пользователей
+    private String buildFilter(Optional<LocalDate> dateOfBirth, Optional<String> phone, Optional<String> name,
+                               Optional<String> email, Map<String, Object> parameters) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        dateOfBirth.ifPresent(value -> {
+            where.append(" AND u.dateOfBirth > :dateOfBirth");
+            parameters.put("dateOfBirth", value);
+        });
+        name.ifPresent(value -> {
+            where.append(" AND u.name LIKE :name ESCAPE '\\'");
+            parameters.put("name", escapeLike(value) + "%");
+        });
+        phone.ifPresent(value -> {
+            where.append(" AND EXISTS (SELECT 1 FROM PhoneData p WHERE p.user = u AND p.phone = :phone)");
+            parameters.put("phone", value);
+        });
+        email.ifPresent(value -> {
+            where.append(" AND EXISTS (SELECT 1 FROM EmailData e WHERE e.user = u AND e.email = :email)");
+            parameters.put("email", value);
+        });
+        return where.toString();
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
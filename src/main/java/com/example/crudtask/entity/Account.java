@@ -1,15 +1,14 @@
 package com.example.crudtask.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.DecimalMin;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-
-import java.math.BigDecimal;
+import org.hibernate.annotations.Formula;
 
 @Entity
 @Table(name = "account")
@@ -21,31 +20,55 @@ import java.math.BigDecimal;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     @Schema(description = "Уникальный идентификатор счета", required = true, example = "1001")
     private Long id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @Schema(description = "Пользователь, к которому принадлежит счет", required = true, example = "1")
     @JsonBackReference
     private User user;
 
     @Column(name = "balance", precision = 19, scale = 2)
-    @Schema(description = "Баланс счета в рублях и копейках", example = "1000.50")
-    @DecimalMin(value = "0.0", inclusive = false)
-    private BigDecimal balance;
+    @Convert(converter = MoneyConverter.class)
+    @Schema(description = "Баланс счета в рублях и копейках", type = "number", example = "1000.50")
+    private Money balance;
 
     @Column(name = "initial_balance")
-    @Schema(description = "Баланс счета в рублях и копейках", example = "1000.50")
-    @DecimalMin(value = "0.0", inclusive = false)
-    private BigDecimal initialBalance;
+    @Convert(converter = MoneyConverter.class)
+    @Schema(description = "Баланс счета в рублях и копейках", type = "number", example = "1000.50")
+    private Money initialBalance;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
+    // Число корзин горячего счета, 0 — обычный счет
+    @Column(name = "bucket_count", nullable = false)
+    @JsonIgnore
+    private int bucketCount;
 
-    public Account(BigDecimal initialBalance) {
+    @Formula("(SELECT COALESCE(SUM(b.balance), 0) FROM account_bucket b WHERE b.account_id = id)")
+    @Convert(converter = MoneyConverter.class)
+    @JsonIgnore
+    private Money bucketBalance;
+
+    public Account(Money initialBalance) {
         this.initialBalance = initialBalance;
         this.balance = initialBalance;
     }
 
+    /**
+     * Баланс вместе с корзинами горячего счета — то, что видит владелец счета.
+     */
+    @JsonIgnore
+    public Money getTotalBalance() {
+        return balance == null || bucketBalance == null ? balance : balance.plus(bucketBalance);
+    }
+
     public void setUser(User user) {
         this.user = user;
         if (user.getAccount() != this) {
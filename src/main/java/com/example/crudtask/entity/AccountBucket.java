@@ -0,0 +1,46 @@
+package com.example.crudtask.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name = "account_bucket")
+@IdClass(AccountBucket.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class AccountBucket {
+
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Id
+    @Column(name = "bucket")
+    private Integer bucket;
+
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money balance;
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Getter
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long accountId;
+        private Integer bucket;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.crudtask.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+@AllArgsConstructor
+public class AccountDto implements AccountView {
+    private Long id;
+    private Money balance;
+    private Money initialBalance;
+
+    // Баланс с корзинами считается в запросе, поэтому приходит числом, а не Money
+    public AccountDto(Long id, BigDecimal balance, Money initialBalance) {
+        this(id, balance == null ? null : Money.of(balance), initialBalance);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.crudtask.entity;
+
+public interface AccountOwner {
+    Long getId();
+
+    Long getUserId();
+
+    int getBucketCount();
+}
@@ -0,0 +1,9 @@
+package com.example.crudtask.entity;
+
+public interface AccountState {
+    Long getId();
+
+    Money getBalance();
+
+    Long getVersion();
+}
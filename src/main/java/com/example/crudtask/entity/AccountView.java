@@ -0,0 +1,15 @@
+package com.example.crudtask.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Информация о счете")
+public interface AccountView {
+    @Schema(description = "Уникальный идентификатор счета", example = "1001")
+    Long getId();
+
+    @Schema(description = "Баланс счета в рублях и копейках", type = "number", example = "1000.50")
+    Money getBalance();
+
+    @Schema(description = "Начальный баланс счета", type = "number", example = "1000.50")
+    Money getInitialBalance();
+}
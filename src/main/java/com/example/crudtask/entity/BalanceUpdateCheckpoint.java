@@ -0,0 +1,46 @@
+package com.example.crudtask.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "balance_update_checkpoint",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"run_id", "chunk_start"}))
+@NoArgsConstructor
+@Getter
+@Setter
+public class BalanceUpdateCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "chunk_start", nullable = false)
+    private Long chunkStart;
+
+    @Column(name = "chunk_end", nullable = false)
+    private Long chunkEnd;
+
+    @Column(name = "updated_rows")
+    private int updatedRows;
+
+    @Column(name = "duration_ms")
+    private long durationMillis;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    public BalanceUpdateCheckpoint(Long runId, Long chunkStart, Long chunkEnd) {
+        this.runId = runId;
+        this.chunkStart = chunkStart;
+        this.chunkEnd = chunkEnd;
+        this.completedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.crudtask.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BalanceUpdateResult {
+    private int updatedRows;
+    private int chunks;
+    private long durationMillis;
+}
@@ -0,0 +1,42 @@
+package com.example.crudtask.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "balance_update_run")
+@NoArgsConstructor
+@Getter
+@Setter
+public class BalanceUpdateRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "lower_account_id", nullable = false)
+    private Long lowerAccountId;
+
+    @Column(name = "upper_account_id", nullable = false)
+    private Long upperAccountId;
+
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+
+    public BalanceUpdateRun(Long lowerAccountId, Long upperAccountId, int chunkSize) {
+        this.startedAt = LocalDateTime.now();
+        this.lowerAccountId = lowerAccountId;
+        this.upperAccountId = upperAccountId;
+        this.chunkSize = chunkSize;
+    }
+}
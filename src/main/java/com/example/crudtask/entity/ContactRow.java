@@ -0,0 +1,7 @@
+package com.example.crudtask.entity;
+
+public interface ContactRow {
+    Long getUserId();
+
+    String getValue();
+}
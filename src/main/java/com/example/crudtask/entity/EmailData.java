@@ -15,14 +15,15 @@ import lombok.Setter;
 @NoArgsConstructor
 @Getter
 @Setter
-public class EmailData {
+public class EmailData implements EmailView {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_data_seq")
+    @SequenceGenerator(name = "email_data_seq", sequenceName = "email_data_seq", allocationSize = 50)
     @Schema(description = "Уникальный идентификатор записи email", required = true, example = "1")
     private Long id;
 
-    @ManyToOne(cascade = CascadeType.PERSIST)
+    @ManyToOne(cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @Schema(description = "Пользователь, к которому принадлежит email", required = true, example = "1")
     @JsonBackReference
@@ -0,0 +1,12 @@
+package com.example.crudtask.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Адрес электронной почты пользователя")
+public interface EmailView {
+    @Schema(description = "Уникальный идентификатор записи email", example = "1")
+    Long getId();
+
+    @Schema(description = "Адрес электронной почты", example = "ivanov@mail.com")
+    String getEmail();
+}
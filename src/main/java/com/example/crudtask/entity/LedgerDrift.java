@@ -0,0 +1,21 @@
+package com.example.crudtask.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Счет, баланс которого не сходится с журналом.
+ */
+@Getter
+@AllArgsConstructor
+public class LedgerDrift {
+    private Long accountId;
+    private BigDecimal balance;
+    private BigDecimal ledgerBalance;
+
+    public BigDecimal getDifference() {
+        return balance.subtract(ledgerBalance);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.crudtask.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Запись журнала движений по счету. Сумма со знаком: списание отрицательное.
+ */
+@Entity
+@Table(name = "ledger_entry")
+@Immutable
+@NoArgsConstructor
+@Getter
+public class LedgerEntry {
+
+    public enum Type {
+        OPENING, TRANSFER, DEPOSIT, WITHDRAWAL, INTEREST, ADJUSTMENT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entry_seq")
+    @SequenceGenerator(name = "ledger_entry_seq", sequenceName = "ledger_entry_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 20)
+    private Type type;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "counterparty_account_id")
+    private Long counterpartyAccountId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public LedgerEntry(Long accountId, Type type, BigDecimal amount, Long counterpartyAccountId) {
+        this.accountId = accountId;
+        this.type = type;
+        this.amount = amount;
+        this.counterpartyAccountId = counterpartyAccountId;
+        this.createdAt = LocalDateTime.now();
+    }
+}
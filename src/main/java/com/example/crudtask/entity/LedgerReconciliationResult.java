@@ -0,0 +1,13 @@
+package com.example.crudtask.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class LedgerReconciliationResult {
+    private List<LedgerDrift> drifts;
+    private long durationMillis;
+}
@@ -0,0 +1,111 @@
+package com.example.crudtask.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+
+/**
+ * Сумма в копейках. Арифметика точная: переполнение {@code long} — ошибка, а не
+ * потеря денег; округление есть только в умножении на процент. В базе сумма
+ * хранится как DECIMAL(19, 2) через {@link MoneyConverter}.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+    private static final long BASIS_POINTS = 10_000;
+
+    private final long kopecks;
+
+    private Money(long kopecks) {
+        this.kopecks = kopecks;
+    }
+
+    public static Money ofKopecks(long kopecks) {
+        return kopecks == 0 ? ZERO : new Money(kopecks);
+    }
+
+    /**
+     * Сумма в рублях; больше двух знаков после запятой не принимается.
+     */
+    @JsonCreator
+    public static Money of(BigDecimal rubles) {
+        try {
+            return ofKopecks(rubles.setScale(SCALE).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Сумма должна быть в рублях и копейках: " + rubles.toPlainString(), e);
+        }
+    }
+
+    public static Money of(String rubles) {
+        return of(new BigDecimal(rubles));
+    }
+
+    public long getKopecks() {
+        return kopecks;
+    }
+
+    public Money plus(Money other) {
+        return ofKopecks(Math.addExact(kopecks, other.kopecks));
+    }
+
+    public Money minus(Money other) {
+        return ofKopecks(Math.subtractExact(kopecks, other.kopecks));
+    }
+
+    public Money negate() {
+        return ofKopecks(Math.negateExact(kopecks));
+    }
+
+    /**
+     * Умножение на процент, заданный в сотых долях процента (110% = 11000),
+     * с округлением до копейки половиной от нуля, как ROUND в SQL.
+     */
+    public Money multiplyBasisPoints(long basisPoints) {
+        long product = Math.multiplyExact(kopecks, basisPoints);
+        long quotient = product / BASIS_POINTS;
+        long remainder = product % BASIS_POINTS;
+        if (Math.abs(remainder) * 2 >= BASIS_POINTS) {
+            quotient += Long.signum(product);
+        }
+        return ofKopecks(quotient);
+    }
+
+    public int signum() {
+        return Long.signum(kopecks);
+    }
+
+    public boolean isLessThan(Money other) {
+        return kopecks < other.kopecks;
+    }
+
+    public static Money min(Money first, Money second) {
+        return first.kopecks <= second.kopecks ? first : second;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(kopecks, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(kopecks, other.kopecks);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && kopecks == other.kopecks;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(kopecks);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
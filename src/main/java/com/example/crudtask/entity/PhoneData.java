@@ -15,14 +15,15 @@ import lombok.Setter;
 @NoArgsConstructor
 @Getter
 @Setter
-public class PhoneData {
+public class PhoneData implements PhoneView {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "phone_data_seq")
+    @SequenceGenerator(name = "phone_data_seq", sequenceName = "phone_data_seq", allocationSize = 50)
     @Schema(name = "Уникальный идентификатор записи телефона", required = true, example = "1")
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @Schema(name = "Пользователь, к которому принадлежит номер телефона", required = true, example = "1")
     @JsonBackReference
@@ -0,0 +1,12 @@
+package com.example.crudtask.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Номер телефона пользователя")
+public interface PhoneView {
+    @Schema(description = "Уникальный идентификатор записи телефона", example = "1")
+    Long getId();
+
+    @Schema(description = "Номер телефона в формате 79207865432", example = "79207865432")
+    String getPhone();
+}
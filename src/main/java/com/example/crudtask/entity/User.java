@@ -24,7 +24,8 @@ import java.util.*;
 @Setter
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_table_seq")
+    @SequenceGenerator(name = "user_table_seq", sequenceName = "user_table_seq", allocationSize = 50)
     @Schema(description = "Уникальный идентификатор пользователя", required = true)
     private Long id;
 
@@ -41,7 +42,7 @@ public class User implements UserDetails {
     @Schema(description = "Пароль пользователя", required = true, example = "password123")
     private String password;
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @Schema(
             description = "Список номеров телефонов пользователя",
             example = "[{\"id\": 1, \"phone\": \"79207865432\"}, {\"id\": 2, \"phone\": \"79876543210\"}]"
@@ -54,10 +55,10 @@ public class User implements UserDetails {
             example = "[{\"id\": 1, \"email\": \"ivanov@mail.com\"}]"
     )
     @JsonManagedReference
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private Set<EmailData> emails = new HashSet<>();
 
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id")
     @Schema(description = "Аккаунт пользователя",
             example = "{\"balance\": 1000.50, \"user\": {\"id\": 1, \"name\": \"Иван Иванов\"}}")
@@ -67,6 +68,10 @@ public class User implements UserDetails {
     @Column(unique = true, nullable = false)
     private String userEmail;
 
+    @JsonIgnore
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
     public User(String email, String password) {
         this.userEmail = email;
         this.password = password;
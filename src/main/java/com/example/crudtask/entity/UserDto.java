@@ -0,0 +1,64 @@
+package com.example.crudtask.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Пользователь для ответов API. Строится из запросов-проекций,
+ * поэтому сериализация не обращается к ленивым связям сущности.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Schema(description = "Информация о пользователе")
+public class UserDto {
+    @Schema(description = "Уникальный идентификатор пользователя", example = "1")
+    private Long id;
+
+    @Schema(description = "Имя пользователя", example = "Иван Иванов")
+    private String name;
+
+    @Schema(description = "Дата рождения пользователя", example = "01.05.1993")
+    private Date dateOfBirth;
+
+    @Schema(description = "Основной email пользователя", example = "ivanov@mail.com")
+    private String userEmail;
+
+    @Schema(description = "Список номеров телефонов пользователя")
+    private List<PhoneView> phones = new ArrayList<>();
+
+    @Schema(description = "Список email-адресов пользователя")
+    private List<EmailView> emails = new ArrayList<>();
+
+    @Schema(description = "Счет пользователя")
+    private AccountView account;
+
+    public UserDto(Long id, String name, Date dateOfBirth, String userEmail,
+                   Long accountId, BigDecimal balance, Money initialBalance) {
+        this.id = id;
+        this.name = name;
+        this.dateOfBirth = dateOfBirth;
+        this.userEmail = userEmail;
+        if (accountId != null) {
+            this.account = new AccountDto(accountId, balance, initialBalance);
+        }
+    }
+
+    public static UserDto from(User user) {
+        Account account = user.getAccount();
+        UserDto dto = new UserDto(user.getId(), user.getName(), user.getDateOfBirth(), user.getUserEmail(), null, null, null);
+        if (account != null) {
+            dto.setAccount(new AccountDto(account.getId(), account.getTotalBalance(), account.getInitialBalance()));
+        }
+        dto.getPhones().addAll(user.getPhones());
+        dto.getEmails().addAll(user.getEmails());
+        return dto;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.crudtask.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserImportRejection {
+    private long line;
+    private String reason;
+}
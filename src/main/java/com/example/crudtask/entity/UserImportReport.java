@@ -0,0 +1,18 @@
+package com.example.crudtask.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class UserImportReport {
+    private long totalRows;
+    private long importedRows;
+    private long rejectedRows;
+    private long durationMillis;
+    private double rowsPerSecond;
+    // Только первые отклоненные строки, чтобы отчет не рос вместе с файлом
+    private List<UserImportRejection> rejections;
+}
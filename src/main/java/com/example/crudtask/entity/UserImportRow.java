@@ -0,0 +1,36 @@
+package com.example.crudtask.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Строка файла массового импорта пользователей (CSV или NDJSON).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserImportRow {
+    private String name;
+    private LocalDate dateOfBirth;
+    // Открытый пароль или готовый BCrypt-хеш
+    private String password;
+    private List<String> emails = new ArrayList<>();
+    private List<String> phones = new ArrayList<>();
+    private BigDecimal initialBalance;
+
+    @JsonIgnore
+    private long line;
+
+    // Ошибка разбора строки; такая строка сразу отклоняется
+    @JsonIgnore
+    private String error;
+}
@@ -0,0 +1,11 @@
+package com.example.crudtask.entity;
+
+import java.util.Date;
+
+public interface UserIndexRow {
+    Long getId();
+
+    String getName();
+
+    Date getDateOfBirth();
+}
@@ -0,0 +1,21 @@
+package com.example.crudtask.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Страница пользователей с курсором для следующего запроса")
+public class UserKeysetPage {
+    @Schema(description = "Пользователи страницы в порядке возрастания id")
+    private List<UserDto> content;
+
+    @Schema(description = "Значение lastId для запроса следующей страницы", example = "42")
+    private Long lastId;
+
+    @Schema(description = "Есть ли следующая страница")
+    private boolean hasNext;
+}
@@ -0,0 +1,351 @@
+package com.example.crudtask.service;
+
+import com.example.crudtask.dao.EmailDataDAO;
+import com.example.crudtask.dao.PhoneDataDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Фильтры Блума по всем email и телефонам. Проверка уникальности перед вставкой
+ * идет в базу, только если фильтр отвечает «возможно есть»; уверенный ответ
+ * «нет» запрос пропускает. Окончательно уникальность проверяет ограничение
+ * в базе: значение, вставленное другим узлом, фильтр этого узла может не знать.
+ * <p>
+ * Фильтры строятся при старте, пополняются при каждой вставке и периодически
+ * перестраиваются, чтобы забыть удаленные значения и подхватить чужие вставки.
+ */
+@Service
+public class ContactUniquenessFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ContactUniquenessFilter.class);
+
+    private final Guard emails;
+    private final Guard phones;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    public ContactUniquenessFilter(EmailDataDAO emailDataDAO, PhoneDataDAO phoneDataDAO,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${contacts.bloom.enabled:true}") boolean enabled,
+                                   @Value("${contacts.bloom.expected-insertions:1000000}") long expectedInsertions,
+                                   @Value("${contacts.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.emails = new Guard("email", emailDataDAO::streamAllEmails, emailDataDAO::count,
+                emailDataDAO::existsByEmail, emailDataDAO::findExistingEmails, expectedInsertions, falsePositiveRate);
+        this.phones = new Guard("phone", phoneDataDAO::streamAllPhones, phoneDataDAO::count,
+                phoneDataDAO::existsByPhone, phoneDataDAO::findExistingPhones, expectedInsertions, falsePositiveRate);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${contacts.bloom.rebuild-ms:3600000}",
+            initialDelayString = "${contacts.bloom.rebuild-ms:3600000}")
+    public void scheduledRebuild() {
+        if (enabled && emails.isReady()) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        emails.rebuild(readOnlyTransaction);
+        phones.rebuild(readOnlyTransaction);
+    }
+
+    public boolean isEmailTaken(String email) {
+        return emails.isTaken(email);
+    }
+
+    public boolean isPhoneTaken(String phone) {
+        return phones.isTaken(phone);
+    }
+
+    /**
+     * Уже занятые значения из переданных; в базу одним запросом уходят только
+     * те, на которые фильтр ответил «возможно есть».
+     */
+    public Set<String> findTakenEmails(Collection<String> emails) {
+        return this.emails.findTaken(emails);
+    }
+
+    public Set<String> findTakenPhones(Collection<String> phones) {
+        return this.phones.findTaken(phones);
+    }
+
+    public void registerEmail(String email) {
+        emails.register(email);
+    }
+
+    public void registerPhone(String phone) {
+        phones.register(phone);
+    }
+
+    public Guard emails() {
+        return emails;
+    }
+
+    public Guard phones() {
+        return phones;
+    }
+
+    /**
+     * Фильтр одного вида контактов вместе со счетчиками проверок.
+     */
+    public static final class Guard {
+
+        private final String name;
+        private final Supplier<Stream<String>> loader;
+        private final LongSupplier counter;
+        private final Predicate<String> existsInDatabase;
+        private final Function<Collection<String>, List<String>> findInDatabase;
+        private final long expectedInsertions;
+        private final double falsePositiveRate;
+
+        private final Object lock = new Object();
+        private volatile BloomFilter filter;
+        // Значения, вставленные во время перестройки; null, если перестройки нет
+        private List<String> addedDuringRebuild;
+
+        private final LongAdder skippedQueries = new LongAdder();
+        private final LongAdder falsePositives = new LongAdder();
+        private final LongAdder confirmedDuplicates = new LongAdder();
+
+        private Guard(String name, Supplier<Stream<String>> loader, LongSupplier counter,
+                      Predicate<String> existsInDatabase, Function<Collection<String>, List<String>> findInDatabase,
+                      long expectedInsertions, double falsePositiveRate) {
+            this.name = name;
+            this.loader = loader;
+            this.counter = counter;
+            this.existsInDatabase = existsInDatabase;
+            this.findInDatabase = findInDatabase;
+            this.expectedInsertions = expectedInsertions;
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        private boolean isTaken(String value) {
+            BloomFilter current = filter;
+            if (current != null && !current.mightContain(value)) {
+                skippedQueries.increment();
+                return false;
+            }
+            boolean exists = existsInDatabase.test(value);
+            if (current != null) {
+                (exists ? confirmedDuplicates : falsePositives).increment();
+            }
+            return exists;
+        }
+
+        private Set<String> findTaken(Collection<String> values) {
+            BloomFilter current = filter;
+            List<String> candidates = new ArrayList<>();
+            for (String value : values) {
+                if (current == null || current.mightContain(value)) {
+                    candidates.add(value);
+                } else {
+                    skippedQueries.increment();
+                }
+            }
+            if (candidates.isEmpty()) {
+                return new HashSet<>();
+            }
+            Set<String> taken = new HashSet<>(findInDatabase.apply(candidates));
+            if (current != null) {
+                confirmedDuplicates.add(taken.size());
+                falsePositives.add(candidates.size() - taken.size());
+            }
+            return taken;
+        }
+
+        // Лишнее значение (например, из откаченной транзакции) дает только ложное срабатывание
+        private void register(String value) {
+            synchronized (lock) {
+                BloomFilter current = filter;
+                if (current != null) {
+                    current.put(value);
+                }
+                if (addedDuringRebuild != null) {
+                    addedDuringRebuild.add(value);
+                }
+            }
+        }
+
+        private void rebuild(TransactionTemplate readOnlyTransaction) {
+            long started = System.nanoTime();
+            synchronized (lock) {
+                addedDuringRebuild = new ArrayList<>();
+            }
+            BloomFilter fresh;
+            try {
+                fresh = readOnlyTransaction.execute(status -> {
+                    // Запас вдвое от текущего числа строк, чтобы фильтр не переполнился до следующей перестройки
+                    BloomFilter loaded = new BloomFilter(Math.max(expectedInsertions, counter.getAsLong() * 2),
+                            falsePositiveRate);
+                    try (Stream<String> values = loader.get()) {
+                        values.forEach(loaded::put);
+                    }
+                    return loaded;
+                });
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    addedDuringRebuild = null;
+                }
+                throw e;
+            }
+            synchronized (lock) {
+                addedDuringRebuild.forEach(fresh::put);
+                addedDuringRebuild = null;
+                filter = fresh;
+            }
+            log.info("Фильтр уникальности {} построен: {} бит, {} хеш-функций, ~{} значений за {} мс",
+                    name, fresh.bitSize(), fresh.hashCount(), fresh.approximateElementCount(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+
+        public boolean isReady() {
+            return filter != null;
+        }
+
+        public long getBitSize() {
+            BloomFilter current = filter;
+            return current == null ? 0 : current.bitSize();
+        }
+
+        public long getApproximateElementCount() {
+            BloomFilter current = filter;
+            return current == null ? 0 : current.approximateElementCount();
+        }
+
+        /** Ожидаемая доля ложных срабатываний при текущей заполненности фильтра. */
+        public double getExpectedFalsePositiveRate() {
+            BloomFilter current = filter;
+            return current == null ? 1.0 : current.expectedFalsePositiveRate();
+        }
+
+        /** Наблюдаемая доля ложных срабатываний среди значений, которых нет в базе. */
+        public double getObservedFalsePositiveRate() {
+            long negatives = skippedQueries.sum() + falsePositives.sum();
+            return negatives == 0 ? 0.0 : (double) falsePositives.sum() / negatives;
+        }
+
+        public long getSkippedQueries() {
+            return skippedQueries.sum();
+        }
+
+        public long getFalsePositives() {
+            return falsePositives.sum();
+        }
+
+        public long getConfirmedDuplicates() {
+            return confirmedDuplicates.sum();
+        }
+    }
+
+    /**
+     * Фильтр Блума на битовом массиве с потокобезопасной вставкой.
+     * Позиции считаются двойным хешированием от 64-битного хеша строки.
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitSize;
+        private final int hashCount;
+        private final LongAdder bitsSet = new LongAdder();
+
+        BloomFilter(long expectedInsertions, double falsePositiveRate) {
+            long n = Math.max(1, expectedInsertions);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = Math.toIntExact(Math.max(1, (m + 63) / 64));
+            this.bits = new AtomicLongArray(words);
+            this.bitSize = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+        }
+
+        void put(String value) {
+            long hash = hash64(value);
+            long h1 = mix(hash);
+            long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitSize);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long previous = bits.getAndAccumulate(word, mask, (current, bit) -> current | bit);
+                if ((previous & mask) == 0) {
+                    bitsSet.increment();
+                }
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash64(value);
+            long h1 = mix(hash);
+            long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitSize);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long bitSize() {
+            return bitSize;
+        }
+
+        int hashCount() {
+            return hashCount;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow((double) bitsSet.sum() / bitSize, hashCount);
+        }
+
+        long approximateElementCount() {
+            double fill = (double) bitsSet.sum() / bitSize;
+            return fill >= 1.0 ? Long.MAX_VALUE : Math.round(-bitSize / (double) hashCount * Math.log(1 - fill));
+        }
+
+        // FNV-1a по символам строки
+        private static long hash64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        // Финализатор SplitMix64: FNV плохо перемешивает старшие биты
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
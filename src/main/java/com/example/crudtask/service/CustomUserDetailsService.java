@@ -1,7 +1,10 @@
 package com.example.crudtask.service;
 
 import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.EmailData;
+import com.example.crudtask.entity.PhoneData;
 import com.example.crudtask.entity.User;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -13,9 +16,16 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserDAO userRepository;
 
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
     @Override
+    @Timed("crudtask.auth.load-user")
     public User loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(username);
+        User user = findByIndex(username);
+        if (user == null) {
+            user = userRepository.findByEmail(username);
+        }
         if (user == null) {
             user = userRepository.findByPhone(username);
         }
@@ -24,4 +34,23 @@ public class CustomUserDetailsService implements UserDetailsService {
         }
         return user;
     }
+
+    // Индекс может отставать от базы, поэтому найденный по нему пользователь
+    // перепроверяется, а промах индекса всегда уходит в обычные запросы
+    private User findByIndex(String username) {
+        Long userId = userSearchIndex.findUserIdByEmail(username);
+        if (userId == null) {
+            userId = userSearchIndex.findUserIdByPhone(username);
+        }
+        if (userId == null) {
+            return null;
+        }
+        User user = userRepository.findWithContactsById(userId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        boolean matches = user.getEmails().stream().map(EmailData::getEmail).anyMatch(username::equals)
+                || user.getPhones().stream().map(PhoneData::getPhone).anyMatch(username::equals);
+        return matches ? user : null;
+    }
 }
@@ -0,0 +1,73 @@
+package com.example.crudtask.service;
+
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Текущая версия токенов пользователя. Принципал строится из claims токена,
+ * а в базу запрос уходит только при промахе, чтобы отозванные сменой пароля
+ * токены перестали приниматься.
+ */
+@Service
+public class TokenVersionCache {
+
+    private final UserDAO userDAO;
+    private final Cache<Long, Integer> cache;
+
+    public TokenVersionCache(UserDAO userDAO,
+                             @Qualifier("applicationTaskExecutor") Executor loadExecutor,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                             @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                             @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userDAO = userDAO;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats();
+        // Синхронный кэш загружает значение внутри блокировки ConcurrentHashMap. На виртуальных
+        // потоках запрос в базу под ней закреплял бы поток за носителем, поэтому загрузка уходит
+        // в applicationTaskExecutor, а запрос ждет ее без закрепления. На обычных потоках лишний
+        // переход между потоками ничего не дает
+        this.cache = virtualThreads
+                ? builder.executor(loadExecutor).<Long, Integer>buildAsync().synchronous()
+                : builder.build();
+    }
+
+    public boolean isCurrent(UserPrincipal principal) {
+        Integer version = cache.get(principal.getId(), userDAO::findTokenVersionById);
+        return version != null && version == principal.getTokenVersion();
+    }
+
+    public void invalidateUser(Long userId) {
+        cache.invalidate(userId);
+        // Повторное удаление после фиксации: параллельный запрос мог успеть
+        // загрузить в кэш еще не измененную версию
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.crudtask.service;
+
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.ContactRow;
+import com.example.crudtask.entity.EmailView;
+import com.example.crudtask.entity.PhoneView;
+import com.example.crudtask.entity.UserDto;
+import com.example.crudtask.entity.UserIndexRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Индекс пользователей в памяти: телефон и email -> id, префикс имени и диапазон
+ * дат рождения -> множество id. Поиск по нему не обращается к базе, база затем
+ * читается только по первичному ключу.
+ * <p>
+ * Индекс заполняется при старте, обновляется после фиксации каждого изменения
+ * на этом узле и периодически перестраивается целиком, чтобы подхватить
+ * изменения, сделанные другими узлами.
+ * <p>
+ * Вход по индексу всегда перепроверяется в базе. Поиск отвечает по индексу,
+ * только пока {@code users.index.search=true}: между перестройками индекс не видит
+ * записей других узлов и прямых изменений в базе, поэтому при нескольких узлах
+ * поиск нужно переключить на базу.
+ */
+@Service
+public class UserSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private final UserDAO userDAO;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final boolean searchEnabled;
+
+    // ReentrantLock, а не synchronized: под блокировкой идут запросы в базу,
+    // и виртуальный поток не должен занимать поток-носитель на время ожидания
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot();
+    private volatile boolean ready;
+    // id пользователей, измененных во время полной перестройки; null, если перестройки нет
+    private Set<Long> changedDuringRebuild;
+
+    public UserSearchIndex(UserDAO userDAO, PlatformTransactionManager transactionManager,
+                           @Value("${users.index.enabled:true}") boolean enabled,
+                           @Value("${users.index.search:true}") boolean searchEnabled) {
+        this.userDAO = userDAO;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.searchEnabled = searchEnabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean isSearchReady() {
+        return ready && searchEnabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${users.index.refresh-ms:300000}",
+            initialDelayString = "${users.index.refresh-ms:300000}")
+    public void scheduledRebuild() {
+        if (enabled && ready) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        long started = System.nanoTime();
+        writeLock.lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        Snapshot fresh = readOnlyTransaction.execute(status -> load());
+
+        writeLock.lock();
+        try {
+            Set<Long> changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            snapshot = fresh;
+            // Изменения, зафиксированные во время чтения, могли в него не попасть
+            changed.forEach(this::reload);
+        } finally {
+            writeLock.unlock();
+        }
+        ready = true;
+        log.info("Индекс пользователей построен: {} пользователей за {} мс",
+                fresh.users.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Перечитывает пользователя после фиксации текущей транзакции
+     * (или сразу, если транзакции нет).
+     */
+    public void refreshUser(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshNow(userId);
+                }
+            });
+        } else {
+            refreshNow(userId);
+        }
+    }
+
+    private void refreshNow(Long userId) {
+        writeLock.lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(userId);
+            }
+            reload(userId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void reload(Long userId) {
+        UserIndexRow row = userDAO.findIndexRowById(userId);
+        if (row == null) {
+            snapshot.remove(userId);
+            return;
+        }
+        IndexedUser user = new IndexedUser(row.getId(), row.getName(), toLocalDate(row.getDateOfBirth()));
+        user.phones.addAll(userDAO.findPhoneValuesByUserId(userId));
+        user.emails.addAll(userDAO.findEmailValuesByUserId(userId));
+        snapshot.put(user);
+    }
+
+    public Long findUserIdByEmail(String email) {
+        return snapshot.userByEmail.get(email);
+    }
+
+    public Long findUserIdByPhone(String phone) {
+        return snapshot.userByPhone.get(phone);
+    }
+
+    /**
+     * id пользователей, подходящих под все заданные фильтры, по возрастанию.
+     * Семантика совпадает с поиском в базе: дата рождения строго больше
+     * заданной, имя начинается с заданной строки с учетом регистра.
+     */
+    public long[] search(Optional<LocalDate> dateOfBirth, Optional<String> phone,
+                         Optional<String> name, Optional<String> email) {
+        Snapshot current = snapshot;
+        Predicate<IndexedUser> byName = name
+                .<Predicate<IndexedUser>>map(prefix -> user -> user.name != null && user.name.startsWith(prefix))
+                .orElse(null);
+        Predicate<IndexedUser> byDateOfBirth = dateOfBirth
+                .<Predicate<IndexedUser>>map(after -> user -> user.dateOfBirth != null && user.dateOfBirth.isAfter(after))
+                .orElse(null);
+
+        // Точные фильтры дают не больше одного кандидата, остальные условия проверяются на нем
+        if (phone.isPresent() || email.isPresent()) {
+            Collection<Long> candidates = null;
+            if (phone.isPresent()) {
+                candidates = single(current.userByPhone.get(phone.get()));
+            }
+            if (email.isPresent()) {
+                candidates = intersect(candidates, single(current.userByEmail.get(email.get())));
+            }
+            return sorted(current, List.of(candidates), and(byName, byDateOfBirth));
+        }
+        if (name.isPresent()) {
+            String prefix = name.get();
+            return sorted(current, current.usersByName.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values(),
+                    byDateOfBirth);
+        }
+        if (dateOfBirth.isPresent()) {
+            return sorted(current, current.usersByDateOfBirth.tailMap(dateOfBirth.get(), false).values(), null);
+        }
+        return sorted(current, List.of(current.users.keySet()), null);
+    }
+
+    /**
+     * Проверяет пользователя, загруженного из базы, теми же фильтрами, что и {@link #search}.
+     * Телефоны и email пользователя должны быть загружены.
+     */
+    public static boolean matches(UserDto user, Optional<LocalDate> dateOfBirth, Optional<String> phone,
+                                  Optional<String> name, Optional<String> email) {
+        LocalDate born = toLocalDate(user.getDateOfBirth());
+        return dateOfBirth.map(after -> born != null && born.isAfter(after)).orElse(true)
+                && name.map(prefix -> user.getName() != null && user.getName().startsWith(prefix)).orElse(true)
+                && phone.map(value -> user.getPhones().stream().map(PhoneView::getPhone).anyMatch(value::equals)).orElse(true)
+                && email.map(value -> user.getEmails().stream().map(EmailView::getEmail).anyMatch(value::equals)).orElse(true);
+    }
+
+    public int size() {
+        return snapshot.users.size();
+    }
+
+    private Snapshot load() {
+        Snapshot fresh = new Snapshot();
+        try (Stream<UserIndexRow> rows = userDAO.streamIndexRows()) {
+            rows.forEach(row -> fresh.users.put(row.getId(),
+                    new IndexedUser(row.getId(), row.getName(), toLocalDate(row.getDateOfBirth()))));
+        }
+        try (Stream<ContactRow> rows = userDAO.streamPhoneRows()) {
+            rows.forEach(row -> {
+                IndexedUser user = fresh.users.get(row.getUserId());
+                if (user != null) {
+                    user.phones.add(row.getValue());
+                }
+            });
+        }
+        try (Stream<ContactRow> rows = userDAO.streamEmailRows()) {
+            rows.forEach(row -> {
+                IndexedUser user = fresh.users.get(row.getUserId());
+                if (user != null) {
+                    user.emails.add(row.getValue());
+                }
+            });
+        }
+        for (IndexedUser user : List.copyOf(fresh.users.values())) {
+            fresh.put(user);
+        }
+        return fresh;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        if (date == null) {
+            return null;
+        }
+        if (date instanceof java.sql.Date) {
+            return ((java.sql.Date) date).toLocalDate();
+        }
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static Collection<Long> single(Long userId) {
+        return userId == null ? Set.of() : Set.of(userId);
+    }
+
+    private static Collection<Long> intersect(Collection<Long> left, Collection<Long> right) {
+        if (left == null) {
+            return right;
+        }
+        Set<Long> result = new HashSet<>(left);
+        result.retainAll(right);
+        return result;
+    }
+
+    private static Predicate<IndexedUser> and(Predicate<IndexedUser> left, Predicate<IndexedUser> right) {
+        if (left == null) {
+            return right;
+        }
+        return right == null ? left : left.and(right);
+    }
+
+    // Совпадения собираются в long[] и сортируются: память зависит от числа
+    // совпадений, а не от величины id
+    private static long[] sorted(Snapshot snapshot, Collection<? extends Collection<Long>> groups,
+                                 Predicate<IndexedUser> predicate) {
+        int capacity = 0;
+        for (Collection<Long> group : groups) {
+            capacity += group.size();
+        }
+        long[] ids = new long[capacity];
+        int count = 0;
+        for (Collection<Long> group : groups) {
+            for (Long id : group) {
+                if (predicate != null) {
+                    IndexedUser user = snapshot.users.get(id);
+                    if (user == null || !predicate.test(user)) {
+                        continue;
+                    }
+                }
+                if (count == ids.length) {
+                    // Группа выросла после подсчета: снимок меняется под ногами у читателя
+                    ids = Arrays.copyOf(ids, Math.max(16, count * 2));
+                }
+                ids[count++] = id;
+            }
+        }
+        Arrays.sort(ids, 0, count);
+        // Пользователь может попасть в несколько групп
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || ids[unique - 1] != ids[i]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return unique == ids.length ? ids : Arrays.copyOf(ids, unique);
+    }
+
+    private static final class Snapshot {
+        private final ConcurrentHashMap<Long, IndexedUser> users = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Long> userByPhone = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Long> userByEmail = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Set<Long>> usersByName = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<LocalDate, Set<Long>> usersByDateOfBirth = new ConcurrentSkipListMap<>();
+
+        // Вызывается под writeLock: читатели видят согласованные ключи каждой структуры
+        private void put(IndexedUser user) {
+            remove(user.id);
+            users.put(user.id, user);
+            user.phones.forEach(phone -> userByPhone.put(phone, user.id));
+            user.emails.forEach(email -> userByEmail.put(email, user.id));
+            if (user.name != null) {
+                usersByName.computeIfAbsent(user.name, key -> ConcurrentHashMap.newKeySet()).add(user.id);
+            }
+            if (user.dateOfBirth != null) {
+                usersByDateOfBirth.computeIfAbsent(user.dateOfBirth, key -> ConcurrentHashMap.newKeySet()).add(user.id);
+            }
+        }
+
+        private void remove(Long userId) {
+            IndexedUser old = users.remove(userId);
+            if (old == null) {
+                return;
+            }
+            old.phones.forEach(phone -> userByPhone.remove(phone, userId));
+            old.emails.forEach(email -> userByEmail.remove(email, userId));
+            if (old.name != null) {
+                removeFromGroup(usersByName, old.name, userId);
+            }
+            if (old.dateOfBirth != null) {
+                removeFromGroup(usersByDateOfBirth, old.dateOfBirth, userId);
+            }
+        }
+
+        private static <K> void removeFromGroup(ConcurrentSkipListMap<K, Set<Long>> groups, K key, Long userId) {
+            groups.computeIfPresent(key, (k, ids) -> {
+                ids.remove(userId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static final class IndexedUser {
+        private final Long id;
+        private final String name;
+        private final LocalDate dateOfBirth;
+        private final Set<String> phones = new HashSet<>();
+        private final Set<String> emails = new HashSet<>();
+
+        private IndexedUser(Long id, String name, LocalDate dateOfBirth) {
+            this.id = id;
+            this.name = name;
+            this.dateOfBirth = dateOfBirth;
+        }
+    }
+}
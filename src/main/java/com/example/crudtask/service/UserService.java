@@ -1,22 +1,26 @@
 package com.example.crudtask.service;
 
-import com.example.crudtask.entity.Account;
-import com.example.crudtask.entity.EmailData;
-import com.example.crudtask.entity.PhoneData;
+import com.example.crudtask.entity.AccountView;
+import com.example.crudtask.entity.EmailView;
+import com.example.crudtask.entity.PhoneView;
 import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.UserDto;
+import com.example.crudtask.entity.UserKeysetPage;
 import org.springframework.data.domain.Page;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserService {
     Optional<User> getUserById(Long userId);
-    List<User> getAllUsers();
-    List<PhoneData> getUserPhones(Long userId);
-    List<EmailData> getUserEmails(Long userId);
-    Account getUserAccount(Long userId);
+    List<UserDto> getAllUsers();
+    void exportUsers(Consumer<UserDto> consumer);
+    List<PhoneView> getUserPhones(Long userId);
+    List<EmailView> getUserEmails(Long userId);
+    AccountView getUserAccount(Long userId);
     User updateUser(Long userId, User updatedUser);
     void deleteUser(Long userId);
     void deposit(Long userId, BigDecimal amount);
@@ -27,7 +31,7 @@ public interface UserService {
     void addPhone(Long userId, String phone);
     void updatePhone(Long userId, Long phoneId, String newPhone);
     void deletePhone(Long userId, Long phoneId);
-    Page<User> searchUsers(
+    Page<UserDto> searchUsers(
             Optional<LocalDate> dateOfBirth,
             Optional<String> phone,
             Optional<String> name,
@@ -35,4 +39,12 @@ public interface UserService {
             int page,
             int size
     );
+    UserKeysetPage searchUsersAfter(
+            Optional<LocalDate> dateOfBirth,
+            Optional<String> phone,
+            Optional<String> name,
+            Optional<String> email,
+            Long lastId,
+            int size
+    );
 }
@@ -0,0 +1,138 @@
+package com.example.crudtask.service.impl;
+
+import com.example.crudtask.dao.AccountBucketDAO;
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.entity.AccountBucket;
+import com.example.crudtask.entity.AccountOwner;
+import com.example.crudtask.entity.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Корзины горячих счетов. Зачисление на счет с корзинами попадает в случайную
+ * корзину, поэтому параллельные зачисления блокируют разные строки. Списание идет
+ * с основной строки счета; если ее не хватает, корзины сворачиваются в нее.
+ * Периодическое сворачивание не дает корзинам копить деньги, недоступные для списания
+ * без лишней транзакции.
+ * <p>
+ * Строки одного счета блокируются в порядке: строка account, затем его корзины.
+ * Зачисление в корзину выполняется последним действием транзакции перевода.
+ */
+@Service
+public class AccountBucketService {
+    private static final Logger log = LoggerFactory.getLogger(AccountBucketService.class);
+
+    private final AccountDAO accountDAO;
+    private final AccountBucketDAO accountBucketDAO;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate separateTransaction;
+    private final List<Long> hotAccountIds;
+    private final int bucketCount;
+
+    public AccountBucketService(AccountDAO accountDAO, AccountBucketDAO accountBucketDAO,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${account.buckets.hot-accounts:}") List<Long> hotAccountIds,
+                                @Value("${account.buckets.count:8}") int bucketCount) {
+        this.accountDAO = accountDAO;
+        this.accountBucketDAO = accountBucketDAO;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.separateTransaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.hotAccountIds = hotAccountIds;
+        this.bucketCount = bucketCount;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void applyConfiguredAccounts() {
+        for (Long accountId : hotAccountIds) {
+            setBucketCount(accountId, bucketCount);
+        }
+    }
+
+    /**
+     * Включает корзины у счета или меняет их число; 0 возвращает счет к одной строке.
+     * Деньги из прежних корзин переносятся в основной баланс.
+     */
+    public void setBucketCount(Long accountId, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Число корзин не может быть отрицательным");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (accountDAO.findAllByIdForUpdate(List.of(accountId)).isEmpty()) {
+                throw new IllegalArgumentException("Счет не найден");
+            }
+            foldLocked(accountId);
+            accountBucketDAO.deleteByAccount(accountId);
+            for (int bucket = 0; bucket < count; bucket++) {
+                accountBucketDAO.save(new AccountBucket(accountId, bucket, Money.ZERO));
+            }
+            accountDAO.updateBucketCount(accountId, count);
+        });
+        log.info("Счет {}: корзин {}", accountId, count);
+    }
+
+    /**
+     * Зачисление в текущей транзакции: на горячий счет — в случайную корзину.
+     */
+    public void credit(AccountOwner account, Money value) {
+        if (account.getBucketCount() > 0) {
+            int bucket = ThreadLocalRandom.current().nextInt(account.getBucketCount());
+            if (accountBucketDAO.credit(account.getId(), bucket, value) > 0) {
+                return;
+            }
+            // Число корзин уменьшили после чтения счета
+        }
+        accountDAO.credit(account.getId(), value);
+    }
+
+    /**
+     * Сворачивает корзины счета в основной баланс отдельной транзакцией и возвращает
+     * перенесенную сумму. Вызывающий не должен держать блокировки на других счетах.
+     */
+    public Money fold(Long accountId) {
+        return separateTransaction.execute(status -> {
+            accountDAO.findAllByIdForUpdate(List.of(accountId));
+            return foldLocked(accountId);
+        });
+    }
+
+    /**
+     * Сворачивание в текущей транзакции, которая уже заблокировала строку счета.
+     */
+    Money foldLocked(Long accountId) {
+        Money total = Money.ZERO;
+        for (AccountBucket bucket : accountBucketDAO.findAllForUpdate(accountId)) {
+            total = total.plus(bucket.getBalance());
+            bucket.setBalance(Money.ZERO);
+        }
+        if (total.signum() != 0) {
+            accountDAO.credit(accountId, total);
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${account.buckets.compact-ms:5000}",
+            initialDelayString = "${account.buckets.compact-ms:5000}")
+    public void compact() {
+        int folded = 0;
+        for (Long accountId : accountDAO.findBucketedIds()) {
+            if (fold(accountId).signum() != 0) {
+                folded++;
+            }
+        }
+        if (folded > 0) {
+            log.debug("Свернуты корзины {} счетов", folded);
+        }
+    }
+}
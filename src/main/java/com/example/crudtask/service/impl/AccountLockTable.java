@@ -0,0 +1,57 @@
+package com.example.crudtask.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Фиксированная таблица блокировок, в которую отображаются идентификаторы счетов.
+ * Несколько счетов могут делить одну полосу, поэтому блокировки всегда берутся
+ * в порядке возрастания индекса полосы — это исключает взаимоблокировки.
+ */
+@Component
+public class AccountLockTable {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public AccountLockTable(@Value("${transfer.lock-stripes:1024}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public Runnable lock(Long firstAccountId, Long secondAccountId) {
+        int first = stripeOf(firstAccountId);
+        int second = stripeOf(secondAccountId);
+
+        if (first == second) {
+            ReentrantLock lock = stripes[first];
+            lock.lock();
+            return lock::unlock;
+        }
+
+        ReentrantLock lower = stripes[Math.min(first, second)];
+        ReentrantLock upper = stripes[Math.max(first, second)];
+        lower.lock();
+        try {
+            upper.lock();
+        } catch (RuntimeException | Error e) {
+            lower.unlock();
+            throw e;
+        }
+        return () -> {
+            upper.unlock();
+            lower.unlock();
+        };
+    }
+
+    int stripeOf(Long accountId) {
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -1,52 +1,84 @@
 package com.example.crudtask.service.impl;
 
 import com.example.crudtask.dao.AccountDAO;
-import com.example.crudtask.dao.UserDAO;
-import com.example.crudtask.entity.Account;
-import com.example.crudtask.entity.User;
+import com.example.crudtask.dao.LedgerEntryDAO;
+import com.example.crudtask.entity.BalanceUpdateResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.List;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class BalanceUpdateService {
-    @Autowired
-    private UserDAO userDAO;
+    private static final Logger log = LoggerFactory.getLogger(BalanceUpdateService.class);
+    private static final String LEASE_NAME = "balance-update";
 
     @Autowired
     private AccountDAO accountDAO;
 
+    @Autowired
+    private LedgerEntryDAO ledgerEntryDAO;
 
-    @Scheduled(fixedRate = 30000)
-    @Transactional
-    public void updateBalances() {
-        List<User> users = userDAO.findAll();
+    @Autowired
+    private ChunkedBalanceUpdateService chunkedBalanceUpdateService;
 
-        for (User user : users) {
-            Account account = user.getAccount();
-            if (account != null && account.getInitialBalance() != null) {
-                BigDecimal currentBalance = account.getBalance();
-                BigDecimal initialBalance = account.getInitialBalance();
+    @Autowired
+    private SchedulerLeaseService leaseService;
 
-                BigDecimal tenPercentIncrease = new BigDecimal("1.10");
+    @Autowired
+    private AccountBucketService accountBucketService;
 
-                BigDecimal maxBalance = initialBalance.multiply(new BigDecimal("2.07"));
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
-                BigDecimal newBalance = currentBalance.multiply(tenPercentIncrease);
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-                if (newBalance.compareTo(maxBalance) > 0) {
-                    newBalance = maxBalance;
-                }
+    @Value("${balance.update.mode:single}")
+    private String mode;
 
-                account.setBalance(newBalance.setScale(2, RoundingMode.HALF_UP));
+    @Value("${balance.update.period-ms:30000}")
+    private long periodMillis;
 
-                accountDAO.save(account);
-            }
+    @Scheduled(fixedRateString = "${balance.update.period-ms:30000}",
+            initialDelayString = "${balance.update.initial-delay-ms:0}")
+    public BalanceUpdateResult updateBalances() {
+        // Запуск периода занимается в базе: после смены владельца аренды
+        // начисление не повторяется раньше срока
+        if (!leaseService.tryStartRun(LEASE_NAME, Duration.ofMillis(periodMillis))) {
+            log.debug("Начисление процентов этого периода выполняет другой узел или уже выполнено");
+            return new BalanceUpdateResult(0, 0, 0);
         }
+        // Проценты начисляются на основную строку счета, поэтому корзины
+        // горячих счетов сначала сворачиваются в нее
+        accountBucketService.compact();
+
+        BalanceUpdateResult result = "chunked".equals(mode)
+                ? chunkedBalanceUpdateService.updateBalances()
+                : updateInOneTransaction();
+        meterRegistry.timer("crudtask.balance.update", "mode", mode)
+                .record(result.getDurationMillis(), TimeUnit.MILLISECONDS);
+        meterRegistry.summary("crudtask.balance.update.rows", "mode", mode).record(result.getUpdatedRows());
+        return result;
+    }
+
+    private BalanceUpdateResult updateInOneTransaction() {
+        long started = System.nanoTime();
+
+        int updatedRows = transactionTemplate.execute(status -> {
+            ledgerEntryDAO.appendInterest();
+            return accountDAO.accrueInterest();
+        });
+
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Начисление процентов: обновлено счетов {} за {} мс", updatedRows, durationMillis);
+        return new BalanceUpdateResult(updatedRows, 1, durationMillis);
     }
 }
@@ -0,0 +1,160 @@
+package com.example.crudtask.service.impl;
+
+import com.example.crudtask.config.WorkerThreads;
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.dao.BalanceUpdateCheckpointDAO;
+import com.example.crudtask.dao.BalanceUpdateRunDAO;
+import com.example.crudtask.dao.LedgerEntryDAO;
+import com.example.crudtask.entity.BalanceUpdateCheckpoint;
+import com.example.crudtask.entity.BalanceUpdateResult;
+import com.example.crudtask.entity.BalanceUpdateRun;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Service
+public class ChunkedBalanceUpdateService {
+    private static final Logger log = LoggerFactory.getLogger(ChunkedBalanceUpdateService.class);
+
+    @Autowired
+    private AccountDAO accountDAO;
+
+    @Autowired
+    private LedgerEntryDAO ledgerEntryDAO;
+
+    @Autowired
+    private BalanceUpdateRunDAO runDAO;
+
+    @Autowired
+    private BalanceUpdateCheckpointDAO checkpointDAO;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${balance.update.chunk-size:10000}")
+    private int chunkSize;
+
+    @Value("${balance.update.parallelism:4}")
+    private int parallelism;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        // Пул и с виртуальными потоками ограничивает число одновременно обрабатываемых чанков
+        executor = Executors.newFixedThreadPool(parallelism, workerThreads.factory("balance-update-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public BalanceUpdateResult updateBalances() {
+        long started = System.nanoTime();
+
+        // Незавершенный прогон продолжается с того места, где он остановился:
+        // границы чанков берутся из него же, поэтому уже обработанные чанки не начисляются повторно
+        BalanceUpdateRun run = runDAO.findFirstByFinishedAtIsNullOrderByIdDesc().orElseGet(this::startRun);
+        if (run == null) {
+            return new BalanceUpdateResult(0, 0, 0);
+        }
+        Set<Long> completed = new HashSet<>(checkpointDAO.findChunkStartsByRunId(run.getId()));
+
+        List<Future<BalanceUpdateCheckpoint>> futures = new ArrayList<>();
+        for (long start = run.getLowerAccountId(); start <= run.getUpperAccountId(); start += run.getChunkSize()) {
+            if (completed.contains(start)) {
+                continue;
+            }
+            long chunkStart = start;
+            long chunkEnd = Math.min(start + run.getChunkSize() - 1, run.getUpperAccountId());
+            futures.add(executor.submit(() -> processChunk(run.getId(), chunkStart, chunkEnd)));
+        }
+
+        int updatedRows = 0;
+        int chunks = 0;
+        boolean failed = false;
+        for (Future<BalanceUpdateCheckpoint> future : futures) {
+            try {
+                BalanceUpdateCheckpoint checkpoint = future.get();
+                if (checkpoint != null) {
+                    updatedRows += checkpoint.getUpdatedRows();
+                    chunks++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed = true;
+            } catch (ExecutionException e) {
+                log.error("Чанк прогона {} завершился с ошибкой", run.getId(), e.getCause());
+                failed = true;
+            }
+        }
+
+        if (!failed) {
+            transactionTemplate.executeWithoutResult(status -> runDAO.findById(run.getId()).ifPresent(r -> {
+                r.setFinishedAt(LocalDateTime.now());
+                runDAO.save(r);
+            }));
+        }
+
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Прогон начисления {}: обработано чанков {}, обновлено счетов {} за {} мс{}",
+                run.getId(), chunks, updatedRows, durationMillis, failed ? " (будет продолжен)" : "");
+        return new BalanceUpdateResult(updatedRows, chunks, durationMillis);
+    }
+
+    private BalanceUpdateRun startRun() {
+        Long lower = accountDAO.findMinId();
+        Long upper = accountDAO.findMaxId();
+        if (lower == null) {
+            return null;
+        }
+        return runDAO.save(new BalanceUpdateRun(lower, upper, chunkSize));
+    }
+
+    private BalanceUpdateCheckpoint processChunk(Long runId, long chunkStart, long chunkEnd) {
+        long started = System.nanoTime();
+        try {
+            BalanceUpdateCheckpoint checkpoint = transactionTemplate.execute(status -> {
+                // Отметка вставляется первой: параллельный прогон того же чанка упрется
+                // в уникальный ключ и откатится, не успев начислить проценты второй раз
+                BalanceUpdateCheckpoint saved = checkpointDAO.saveAndFlush(
+                        new BalanceUpdateCheckpoint(runId, chunkStart, chunkEnd));
+                ledgerEntryDAO.appendInterestInRange(chunkStart, chunkEnd);
+                saved.setUpdatedRows(accountDAO.accrueInterestInRange(chunkStart, chunkEnd));
+                saved.setDurationMillis((System.nanoTime() - started) / 1_000_000);
+                return saved;
+            });
+            log.debug("Чанк [{}, {}] прогона {}: обновлено счетов {} за {} мс",
+                    chunkStart, chunkEnd, runId, checkpoint.getUpdatedRows(), checkpoint.getDurationMillis());
+            return checkpoint;
+        } catch (DataIntegrityViolationException e) {
+            // Пропускается только чанк, отметку которого зафиксировал другой исполнитель;
+            // любое другое нарушение ограничений — ошибка чанка, и прогон останется незавершенным
+            if (!checkpointDAO.existsByRunIdAndChunkStart(runId, chunkStart)) {
+                throw e;
+            }
+            log.debug("Чанк [{}, {}] прогона {} уже обработан другим исполнителем", chunkStart, chunkEnd, runId);
+            return null;
+        }
+    }
+}
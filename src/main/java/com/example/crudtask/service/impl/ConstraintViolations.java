@@ -0,0 +1,23 @@
+package com.example.crudtask.service.impl;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Распознавание нарушения ограничения базы в цепочке причин исключения.
+ */
+final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    // Общий EntityManager не переводит исключения в иерархию Spring, поэтому проверяются оба вида
+    static boolean isConstraintViolation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.crudtask.service.impl;
+
+import com.example.crudtask.entity.LedgerEntry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Запись журнала в транзакции изменения баланса: запись и баланс фиксируются
+ * или откатываются вместе, поэтому журнал нельзя потерять между ними.
+ * <p>
+ * Записи одной транзакции уходят в базу одним пакетом JDBC при ее фиксации
+ * (идентификаторы выдаются из последовательности блоками), так что пачка
+ * конвейера переводов пишет весь свой журнал одной вставкой.
+ */
+@Service
+public class LedgerJournal {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AtomicLong writtenEntries = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+
+    /**
+     * Добавляет записи в текущую транзакцию; вне транзакции вызывать нельзя.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(LedgerEntry... entries) {
+        for (LedgerEntry entry : entries) {
+            entityManager.persist(entry);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                writtenEntries.addAndGet(entries.length);
+                commits.incrementAndGet();
+            }
+        });
+    }
+
+    public long getWrittenEntries() {
+        return writtenEntries.get();
+    }
+
+    public long getCommits() {
+        return commits.get();
+    }
+}
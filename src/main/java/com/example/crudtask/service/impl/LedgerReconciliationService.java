@@ -0,0 +1,40 @@
+package com.example.crudtask.service.impl;
+
+import com.example.crudtask.dao.LedgerEntryDAO;
+import com.example.crudtask.entity.LedgerDrift;
+import com.example.crudtask.entity.LedgerReconciliationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Сверка балансов с журналом: баланс счета должен равняться начальному балансу
+ * плюс сумме записей журнала по счету.
+ */
+@Service
+public class LedgerReconciliationService {
+    private static final Logger log = LoggerFactory.getLogger(LedgerReconciliationService.class);
+
+    @Autowired
+    private LedgerEntryDAO ledgerEntryDAO;
+
+    @Scheduled(fixedDelayString = "${ledger.reconcile-ms:600000}",
+            initialDelayString = "${ledger.reconcile-ms:600000}")
+    public LedgerReconciliationResult reconcile() {
+        long started = System.nanoTime();
+
+        List<LedgerDrift> drifts = ledgerEntryDAO.findDrifts();
+
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+        for (LedgerDrift drift : drifts) {
+            log.warn("Баланс счета {} расходится с журналом: баланс {}, по журналу {}",
+                    drift.getAccountId(), drift.getBalance(), drift.getLedgerBalance());
+        }
+        log.info("Сверка с журналом: расхождений {} за {} мс", drifts.size(), durationMillis);
+        return new LedgerReconciliationResult(drifts, durationMillis);
+    }
+}
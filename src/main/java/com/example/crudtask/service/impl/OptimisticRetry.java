@@ -0,0 +1,90 @@
+package com.example.crudtask.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Повтор операции, проигравшей гонку версий счета. Между попытками — пауза
+ * со случайной задержкой от нуля до экспоненциально растущего предела, чтобы
+ * столкнувшиеся запросы не повторялись одновременно. Каждая попытка должна
+ * выполняться в своей транзакции. Когда попытки исчерпаны (горячая строка),
+ * операция выполняется запасным способом, обычно под блокировкой.
+ */
+@Component
+public class OptimisticRetry {
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    public OptimisticRetry(@Value("${transfer.optimistic.max-attempts:5}") int maxAttempts,
+                           @Value("${transfer.optimistic.backoff-ms:2}") long baseBackoffMillis,
+                           @Value("${transfer.optimistic.max-backoff-ms:100}") long maxBackoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(Supplier<T> attempt) {
+        return execute(attempt, null);
+    }
+
+    public <T> T execute(Supplier<T> attempt, Supplier<T> fallback) {
+        for (int number = 1; ; number++) {
+            attempts.incrementAndGet();
+            try {
+                return attempt.get();
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.incrementAndGet();
+                if (number >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    if (fallback == null) {
+                        log.warn("Конфликт версий не разрешился за {} попыток", maxAttempts);
+                        throw e;
+                    }
+                    log.debug("Конфликт версий не разрешился за {} попыток, запасной путь", maxAttempts);
+                    return fallback.get();
+                }
+                backoff(number);
+            }
+        }
+    }
+
+    public long getAttempts() {
+        return attempts.get();
+    }
+
+    public long getConflicts() {
+        return conflicts.get();
+    }
+
+    public long getRetries() {
+        return conflicts.get() - exhausted.get();
+    }
+
+    public long getExhausted() {
+        return exhausted.get();
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Повтор перевода прерван", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.crudtask.service.impl;
+
+import com.example.crudtask.dao.SchedulerLeaseDAO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Аренда строки в scheduler_lease: периодическую задачу выполняет только узел,
+ * который продлил аренду. Если владелец перестал продлевать ее, по истечении
+ * ttl аренду забирает первый обратившийся узел. Сроки считаются по часам базы.
+ * <p>
+ * ttl должен быть больше периода задачи: владелец продлевает аренду на каждом
+ * своем тике и не теряет ее между тиками. Срок следующего запуска хранится
+ * в той же строке, поэтому новый владелец не запустит задачу раньше срока.
+ */
+@Service
+public class SchedulerLeaseService {
+    private static final Logger log = LoggerFactory.getLogger(SchedulerLeaseService.class);
+
+    @Autowired
+    private SchedulerLeaseDAO leaseDAO;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${scheduler.lease.ttl-ms:90000}")
+    private long ttlMillis;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+
+    public boolean tryAcquire(String name) {
+        return acquire(name, null) != Outcome.FOLLOWER;
+    }
+
+    /**
+     * Захватывает или продлевает аренду и, если подошел срок, занимает запуск
+     * текущего периода. true — задачу в этом периоде выполняет этот узел.
+     */
+    public boolean tryStartRun(String name, Duration period) {
+        return acquire(name, period) == Outcome.RUN;
+    }
+
+    private Outcome acquire(String name, Duration period) {
+        Duration ttl = Duration.ofMillis(ttlMillis);
+        Outcome outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> {
+                // Условный UPDATE блокирует строку, поэтому из узлов, пришедших
+                // одновременно, истекшую аренду получает только первый
+                boolean leader = leaseDAO.renew(name, owner, ttl.toNanos()) > 0;
+                if (!leader && !leaseDAO.existsById(name)) {
+                    // Настоящая вставка, а не merge: второй узел получит нарушение ключа
+                    leader = leaseDAO.insert(name, owner, ttl.toNanos()) > 0;
+                }
+                if (!leader) {
+                    return Outcome.FOLLOWER;
+                }
+                return period != null && leaseDAO.claimRun(name, owner, period.toNanos(), period.toNanos() / 2) > 0
+                        ? Outcome.RUN : Outcome.LEADER;
+            });
+        } catch (DataIntegrityViolationException e) {
+            outcome = Outcome.FOLLOWER;
+        }
+
+        if (outcome != Outcome.FOLLOWER) {
+            if (held.add(name)) {
+                log.info("Узел {} получил аренду {}", owner, name);
+            }
+        } else if (held.remove(name)) {
+            log.info("Узел {} потерял аренду {}", owner, name);
+        }
+        return outcome;
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        for (String name : held) {
+            transactionTemplate.executeWithoutResult(status -> leaseDAO.release(name, owner));
+        }
+        held.clear();
+    }
+
+    private enum Outcome {
+        FOLLOWER, LEADER, RUN
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.crudtask.service.impl;
+
+import com.example.crudtask.dao.TransferRequestDAO;
+import com.example.crudtask.entity.TransferRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Результаты переводов по ключу идемпотентности. Источник истины — таблица
+ * transfer_request, строка в которую вставляется в транзакции самого перевода;
+ * недавние ключи дополнительно держатся в памяти, чтобы повтор не ходил в базу.
+ * Неудачный перевод откатывается вместе со строкой, и его можно повторить с тем же ключом.
+ */
+@Service
+public class TransferIdempotencyService {
+    private static final Logger log = LoggerFactory.getLogger(TransferIdempotencyService.class);
+    static final int MAX_KEY_LENGTH = 100;
+
+    private final TransferRequestDAO transferRequestDAO;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<TransferRequest.Key, TransferRequest> recent;
+    private final Duration ttl;
+
+    public TransferIdempotencyService(TransferRequestDAO transferRequestDAO, TransactionTemplate transactionTemplate,
+                                      @Value("${transfer.idempotency.cache-size:100000}") long cacheSize,
+                                      @Value("${transfer.idempotency.ttl-hours:24}") long ttlHours) {
+        this.transferRequestDAO = transferRequestDAO;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    static void requireValidKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Ключ идемпотентности должен содержать от 1 до " + MAX_KEY_LENGTH + " символов");
+        }
+    }
+
+    /**
+     * Результат уже выполненного перевода с этим ключом или null.
+     */
+    public String findResult(Long userId, String key, Long transferToId, BigDecimal amount) {
+        TransferRequest.Key id = new TransferRequest.Key(userId, key);
+        TransferRequest request = recent.getIfPresent(id);
+        if (request == null) {
+            request = transferRequestDAO.findById(id).orElse(null);
+            if (request == null) {
+                return null;
+            }
+            recent.put(id, request);
+        }
+        if (!request.matches(transferToId, amount)) {
+            throw new IllegalArgumentException("Ключ идемпотентности уже использован для другого перевода");
+        }
+        return request.getResult();
+    }
+
+    /**
+     * Регистрирует ключ в текущей транзакции перевода. Если тот же ключ вставляет
+     * параллельная транзакция, эта ждет ее завершения и получает нарушение уникальности.
+     */
+    public void register(Long userId, String key, Long transferToId, BigDecimal amount, String result) {
+        LocalDateTime now = LocalDateTime.now();
+        transferRequestDAO.insert(userId, key, transferToId, amount, result, now);
+        TransferRequest request = new TransferRequest(userId, key, transferToId, amount, result, now);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recent.put(new TransferRequest.Key(userId, key), request);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.idempotency.purge-ms:3600000}",
+            initialDelayString = "${transfer.idempotency.purge-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = transactionTemplate.execute(status ->
+                transferRequestDAO.deleteCreatedBefore(LocalDateTime.now().minus(ttl)));
+        if (deleted > 0) {
+            log.info("Удалено просроченных ключей идемпотентности: {}", deleted);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.crudtask.service.impl;
+
+import com.example.crudtask.config.WorkerThreads;
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.Account;
+import com.example.crudtask.entity.AccountOwner;
+import com.example.crudtask.entity.LedgerEntry;
+import com.example.crudtask.entity.Money;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Конвейерный режим переводов ({@code transfer.pipeline.enabled=true}). Запросы
+ * ставятся в ограниченную очередь, а несколько рабочих потоков забирают их пачками
+ * и выполняют пачку одной транзакцией: счета пачки блокируются одним запросом,
+ * переводы проверяются по порядку поступления, а в базу уходит по одному UPDATE
+ * на счет с суммарным изменением его баланса.
+ * <p>
+ * Вызывающий получает {@link CompletableFuture}, который завершается после фиксации
+ * пачки. Если очередь заполнена или конвейер остановлен, запрос сразу отклоняется
+ * с {@link RejectedExecutionException}.
+ */
+@Service
+public class TransferPipeline {
+    private static final Logger log = LoggerFactory.getLogger(TransferPipeline.class);
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private AccountDAO accountDAO;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private LedgerJournal ledgerJournal;
+
+    @Autowired
+    private AccountBucketService accountBucketService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${transfer.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transfer.pipeline.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${transfer.pipeline.batch-size:200}")
+    private int batchSize;
+
+    @Value("${transfer.pipeline.workers:2}")
+    private int workers;
+
+    private BlockingQueue<Command> queue;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong completedTransfers = new AtomicLong();
+    private final AtomicLong rejectedSubmissions = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            threads.add(workerThreads.start("transfer-pipeline-" + i, this::drainLoop));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (queue != null) {
+            // Перевод мог попасть в очередь, пока останавливались рабочие потоки
+            List<Command> abandoned = new ArrayList<>();
+            queue.drainTo(abandoned);
+            abandoned.forEach(command -> command.result.completeExceptionally(
+                    new RejectedExecutionException("Конвейер переводов остановлен")));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompletableFuture<String> submit(Long transferFromId, Long transferToId, BigDecimal value) {
+        if (!enabled) {
+            throw new IllegalStateException("Конвейерный режим переводов отключен");
+        }
+        Command command = new Command(transferFromId, transferToId,
+                TransferService.requireValidTransfer(transferFromId, value));
+        if (!running) {
+            throw new RejectedExecutionException("Конвейер переводов остановлен");
+        }
+        if (!queue.offer(command)) {
+            rejectedSubmissions.incrementAndGet();
+            throw new RejectedExecutionException("Очередь переводов переполнена, повторите позже");
+        }
+        return command.result;
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getCompletedTransfers() {
+        return completedTransfers.get();
+    }
+
+    public long getRejectedSubmissions() {
+        return rejectedSubmissions.get();
+    }
+
+    public int getQueueSize() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    private void drainLoop() {
+        List<Command> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Остановка: уже принятые переводы выполняются до выхода
+                continue;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    private void process(List<Command> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Map<Command, String> failures = transactionTemplate.execute(status -> applyBatch(batch));
+                for (Command command : batch) {
+                    String failure = failures.get(command);
+                    if (failure == null) {
+                        command.result.complete(TransferService.TRANSFER_SUCCEEDED);
+                    } else {
+                        command.result.completeExceptionally(new IllegalArgumentException(failure));
+                    }
+                }
+                batches.incrementAndGet();
+                completedTransfers.addAndGet(batch.size() - failures.size());
+                return;
+            } catch (TransientDataAccessException e) {
+                // Взаимоблокировка или таймаут блокировки: пачка пересчитывается в новой транзакции
+                if (attempt < MAX_ATTEMPTS) {
+                    log.debug("Пачка переводов откатилась, попытка {}", attempt, e);
+                    continue;
+                }
+                fail(batch, e);
+                return;
+            } catch (RuntimeException e) {
+                fail(batch, e);
+                return;
+            }
+        }
+    }
+
+    private void fail(List<Command> batch, RuntimeException e) {
+        log.error("Не удалось выполнить пачку из {} переводов", batch.size(), e);
+        batch.forEach(command -> command.result.completeExceptionally(e));
+    }
+
+    // Возвращает причины отказа по переводам; остальные переводы пачки применены
+    private Map<Command, String> applyBatch(List<Command> batch) {
+        Set<Long> userIds = new HashSet<>();
+        for (Command command : batch) {
+            userIds.add(command.fromUserId);
+            userIds.add(command.toUserId);
+        }
+        Map<Long, Long> accountIds = new HashMap<>();
+        for (AccountOwner owner : accountDAO.findOwnersByUserIds(userIds)) {
+            accountIds.put(owner.getUserId(), owner.getId());
+        }
+        Map<Long, Money> balances = new HashMap<>();
+        for (Account account : accountDAO.findAllByIdForUpdate(new HashSet<>(accountIds.values()))) {
+            // Строки счетов уже заблокированы, корзины горячих счетов сворачиваются после них
+            Money balance = account.getBalance();
+            if (account.getBucketCount() > 0 && balance != null) {
+                balance = balance.plus(accountBucketService.foldLocked(account.getId()));
+            }
+            balances.put(account.getId(), balance);
+        }
+
+        Map<Command, String> failures = new HashMap<>();
+        Map<Long, Money> deltas = new HashMap<>();
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (Command command : batch) {
+            Long fromAccountId = accountIds.get(command.fromUserId);
+            Long toAccountId = accountIds.get(command.toUserId);
+            if (fromAccountId == null || toAccountId == null) {
+                failures.put(command, missingAccountMessage(fromAccountId == null ? command.fromUserId : command.toUserId,
+                        fromAccountId == null ? "Отправитель не найден" : "Получатель не найден"));
+                continue;
+            }
+            Money fromBalance = balances.get(fromAccountId);
+            if (fromBalance == null || balances.get(toAccountId) == null || fromBalance.isLessThan(command.value)) {
+                failures.put(command, "Недостаточно средств для перевода");
+                continue;
+            }
+            balances.put(fromAccountId, fromBalance.minus(command.value));
+            balances.merge(toAccountId, command.value, Money::plus);
+            deltas.merge(fromAccountId, command.value.negate(), Money::plus);
+            deltas.merge(toAccountId, command.value, Money::plus);
+            BigDecimal amount = command.value.toBigDecimal();
+            entries.add(new LedgerEntry(fromAccountId, LedgerEntry.Type.TRANSFER, amount.negate(), toAccountId));
+            entries.add(new LedgerEntry(toAccountId, LedgerEntry.Type.TRANSFER, amount, fromAccountId));
+        }
+
+        // Строки заблокированы, поэтому неотрицательность балансов уже проверена выше
+        deltas.forEach((accountId, delta) -> {
+            if (delta.signum() != 0) {
+                accountDAO.credit(accountId, delta);
+            }
+        });
+        if (!entries.isEmpty()) {
+            ledgerJournal.append(entries.toArray(new LedgerEntry[0]));
+        }
+        return failures;
+    }
+
+    private String missingAccountMessage(Long userId, String notFoundMessage) {
+        return userDAO.existsById(userId) ? "Один из пользователей не имеет аккаунта" : notFoundMessage;
+    }
+
+    private static final class Command {
+        private final Long fromUserId;
+        private final Long toUserId;
+        private final Money value;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private Command(Long fromUserId, Long toUserId, Money value) {
+            this.fromUserId = fromUserId;
+            this.toUserId = toUserId;
+            this.value = value;
+        }
+    }
+}
@@ -3,56 +3,252 @@ package com.example.crudtask.service.impl;
 import com.example.crudtask.config.JwtUtil;
 import com.example.crudtask.dao.AccountDAO;
 import com.example.crudtask.dao.UserDAO;
-import com.example.crudtask.entity.Account;
-import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.AccountOwner;
+import com.example.crudtask.entity.AccountState;
+import com.example.crudtask.entity.LedgerEntry;
+import com.example.crudtask.entity.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class TransferService {
+    static final String TRANSFER_SUCCEEDED = "Перевод успешен";
+    private static final String TRANSFER_TIMER = "crudtask.transfer";
+
     @Autowired
     private UserDAO userDAO;
 
     @Autowired
     private AccountDAO accountDAO;
 
-    @Transactional
+    @Autowired
+    private AccountLockTable accountLockTable;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TransferIdempotencyService idempotencyService;
+
+    @Autowired
+    private LedgerJournal ledgerJournal;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private AccountBucketService accountBucketService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // locking — условные UPDATE под локальными блокировками счетов,
+    // optimistic — чтение баланса и запись с проверкой версии, при конфликте повтор
+    @Value("${transfer.concurrency:locking}")
+    private String concurrency;
+
     public String transferMoney(Long transferFromId, Long transferToId, BigDecimal value) {
-        User transferFrom = userDAO.findById(transferFromId)
-                .orElseThrow(() -> new IllegalArgumentException("Отправитель не найден"));
-        if (!JwtUtil.getCurrentUsername().equals(transferFrom.getUsername())) {
-            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
+        return transferMoney(transferFromId, transferToId, value, null);
+    }
+
+    /**
+     * Перевод с ключом идемпотентности: повтор с тем же ключом возвращает
+     * результат первого выполнения и не трогает счета.
+     */
+    public String transferMoney(Long transferFromId, Long transferToId, BigDecimal value, String idempotencyKey) {
+        // Время пишется здесь, а не через @Timed: перегрузка без ключа вызывает этот
+        // метод напрямую, мимо прокси, и каждый перевод должен попасть в таймер один раз
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return doTransferMoney(transferFromId, transferToId, value, idempotencyKey);
+        } catch (RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(TRANSFER_TIMER, "exception", exception));
         }
-        User transferTo = userDAO.findById(transferToId)
-                .orElseThrow(() -> new IllegalArgumentException("Получатель не найден"));
+    }
 
-        Account fromAccount = transferFrom.getAccount();
-        Account toAccount = transferTo.getAccount();
+    private String doTransferMoney(Long transferFromId, Long transferToId, BigDecimal value, String idempotencyKey) {
+        Money amount = requireValidTransfer(transferFromId, value);
+        if (idempotencyKey != null) {
+            TransferIdempotencyService.requireValidKey(idempotencyKey);
+            String replay = idempotencyService.findResult(transferFromId, idempotencyKey, transferToId, value);
+            if (replay != null) {
+                return replay;
+            }
+        }
 
-        if (fromAccount == null || toAccount == null) {
-            throw new IllegalArgumentException("Один из пользователей не имеет аккаунта");
+        // Оба счета читаются одним запросом
+        Map<Long, AccountOwner> owners = new HashMap<>();
+        for (AccountOwner owner : accountDAO.findOwnersByUserIds(List.of(transferFromId, transferToId))) {
+            owners.put(owner.getUserId(), owner);
         }
+        AccountOwner from = requireAccount(owners, transferFromId, "Отправитель не найден");
+        AccountOwner to = requireAccount(owners, transferToId, "Получатель не найден");
 
-        if (fromAccount.getBalance().compareTo(value) < 0) {
-            throw new IllegalArgumentException("Недостаточно средств для перевода");
+        try {
+            try {
+                return transfer(from, to, amount, idempotencyKey);
+            } catch (IllegalArgumentException e) {
+                // Недостающие средства горячего счета могут лежать в корзинах: они
+                // сворачиваются в основной баланс, и перевод повторяется
+                if (from.getBucketCount() == 0 || accountBucketService.fold(from.getId()).signum() == 0) {
+                    throw e;
+                }
+                return transfer(from, to, amount, idempotencyKey);
+            }
+        } catch (RuntimeException e) {
+            // Тот же ключ зафиксировала параллельная транзакция: отдаем ее результат
+            String replay = idempotencyKey == null || !ConstraintViolations.isConstraintViolation(e) ? null
+                    : idempotencyService.findResult(transferFromId, idempotencyKey, transferToId, value);
+            if (replay == null) {
+                throw e;
+            }
+            return replay;
+        }
+    }
+
+    private String transfer(AccountOwner from, AccountOwner to, Money value, String idempotencyKey) {
+        // Горячие счета не версионируются: зачисления в корзины не конфликтуют
+        if (!"optimistic".equals(concurrency) || from.getBucketCount() > 0 || to.getBucketCount() > 0) {
+            return executeLocked(from, to, value, idempotencyKey);
         }
+        // Горячий счет, на котором попытки кончились, переводится под блокировками:
+        // так перевод выполнится и при постоянных конфликтах
+        return optimisticRetry.execute(
+                () -> execute(from, to, value, idempotencyKey, true),
+                () -> executeLocked(from, to, value, idempotencyKey));
+    }
 
+    // Корректность обеспечивают условные UPDATE в базе, в том числе между узлами.
+    // Локальные блокировки удерживаются до фиксации и лишь избавляют переводы
+    // одного узла от ожидания на блокировках строк. Зачисление в корзину
+    // горячего счета его блокировки не требует.
+    private String executeLocked(AccountOwner from, AccountOwner to, Money value, String idempotencyKey) {
+        Runnable unlock = accountLockTable.lock(from.getId(), usesBucket(from, to) ? from.getId() : to.getId());
+        try {
+            return execute(from, to, value, idempotencyKey, false);
+        } finally {
+            unlock.run();
+        }
+    }
+
+    private String execute(AccountOwner from, AccountOwner to, Money value, String idempotencyKey,
+                           boolean versioned) {
+        return transactionTemplate.execute(status -> {
+            // Ключ регистрируется до списания: дубликат с другого узла ждет на нем,
+            // а не на строках счетов, и откатывается, не выполнив перевод
+            if (idempotencyKey != null) {
+                idempotencyService.register(from.getUserId(), idempotencyKey, to.getUserId(), value.toBigDecimal(),
+                        TRANSFER_SUCCEEDED);
+            }
+            if (versioned) {
+                return applyVersionedTransfer(from.getId(), to.getId(), value);
+            }
+            if (usesBucket(from, to)) {
+                debit(from.getId(), value);
+                accountBucketService.credit(to, value);
+                appendTransferEntries(from.getId(), to.getId(), value);
+                return TRANSFER_SUCCEEDED;
+            }
+            return applyTransfer(from.getId(), to.getId(), value);
+        });
+    }
+
+    // Перевод самому себе идет через основную строку: иначе транзакция держала бы
+    // корзину, ожидая строку счета, в обратном сворачиванию порядке
+    private static boolean usesBucket(AccountOwner from, AccountOwner to) {
+        return to.getBucketCount() > 0 && !from.getId().equals(to.getId());
+    }
+
+    static Money requireValidTransfer(Long transferFromId, BigDecimal value) {
+        if (!transferFromId.equals(JwtUtil.getCurrentUserId())) {
+            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
+        }
         if (value.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Сумма перевода должна быть положительной");
         }
+        return Money.of(value);
+    }
+
+    private String applyTransfer(Long fromAccountId, Long toAccountId, Money value) {
+        // Списание и зачисление выполняются в порядке возрастания id счета,
+        // чтобы встречные переводы не блокировали строки в разном порядке
+        if (fromAccountId <= toAccountId) {
+            debit(fromAccountId, value);
+            accountDAO.credit(toAccountId, value);
+        } else {
+            accountDAO.credit(toAccountId, value);
+            debit(fromAccountId, value);
+        }
+        appendTransferEntries(fromAccountId, toAccountId, value);
+
+        return TRANSFER_SUCCEEDED;
+    }
+
+    // Баланс проверяется по прочитанному значению, а запись проходит, только если
+    // версия счета с тех пор не изменилась; иначе транзакция откатывается и повторяется
+    private String applyVersionedTransfer(Long fromAccountId, Long toAccountId, Money value) {
+        Map<Long, AccountState> states = new HashMap<>();
+        for (AccountState state : accountDAO.findStatesByIds(List.of(fromAccountId, toAccountId))) {
+            states.put(state.getId(), state);
+        }
+        AccountState from = states.get(fromAccountId);
+        AccountState to = states.get(toAccountId);
+        if (from.getBalance() == null || to.getBalance() == null || from.getBalance().isLessThan(value)) {
+            throw new IllegalArgumentException("Недостаточно средств для перевода");
+        }
+        if (!fromAccountId.equals(toAccountId)) {
+            if (fromAccountId < toAccountId) {
+                writeVersioned(from, from.getBalance().minus(value));
+                writeVersioned(to, to.getBalance().plus(value));
+            } else {
+                writeVersioned(to, to.getBalance().plus(value));
+                writeVersioned(from, from.getBalance().minus(value));
+            }
+        }
+        appendTransferEntries(fromAccountId, toAccountId, value);
 
-        synchronized (this) {
-            fromAccount.setBalance(fromAccount.getBalance().subtract(value));
+        return TRANSFER_SUCCEEDED;
+    }
 
-            toAccount.setBalance(toAccount.getBalance().add(value));
+    private void appendTransferEntries(Long fromAccountId, Long toAccountId, Money value) {
+        ledgerJournal.append(
+                new LedgerEntry(fromAccountId, LedgerEntry.Type.TRANSFER, value.negate().toBigDecimal(), toAccountId),
+                new LedgerEntry(toAccountId, LedgerEntry.Type.TRANSFER, value.toBigDecimal(), fromAccountId));
+    }
 
-            accountDAO.save(fromAccount);
-            accountDAO.save(toAccount);
+    private void writeVersioned(AccountState state, Money balance) {
+        if (accountDAO.updateBalanceIfVersion(state.getId(), balance, state.getVersion()) == 0) {
+            throw new OptimisticLockingFailureException("Счет " + state.getId() + " изменен параллельной операцией");
         }
+    }
+
+    private void debit(Long accountId, Money value) {
+        if (accountDAO.debit(accountId, value) == 0) {
+            throw new IllegalArgumentException("Недостаточно средств для перевода");
+        }
+    }
 
-        return "Перевод успешен";
+    private AccountOwner requireAccount(Map<Long, AccountOwner> owners, Long userId, String notFoundMessage) {
+        AccountOwner account = owners.get(userId);
+        if (account == null) {
+            throw new IllegalArgumentException(userDAO.existsById(userId)
+                    ? "Один из пользователей не имеет аккаунта"
+                    : notFoundMessage);
+        }
+        return account;
     }
 }
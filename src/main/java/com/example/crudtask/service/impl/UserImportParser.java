@@ -0,0 +1,187 @@
+package com.example.crudtask.service.impl;
+
+import com.example.crudtask.entity.UserImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Построчный разбор файла импорта: в памяти держится только текущая строка.
+ * Ошибка в строке не прерывает разбор, а попадает в {@link UserImportRow#getError()}.
+ * <p>
+ * CSV начинается с заголовка {@code name,dateOfBirth,password,emails,phones,initialBalance}
+ * (порядок колонок любой), несколько email и телефонов разделяются ';'.
+ * NDJSON — по одному JSON-объекту с теми же полями на строку, emails и phones — массивы.
+ */
+public class UserImportParser implements Iterator<UserImportRow> {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format of(String value) {
+            String normalized = value.toLowerCase();
+            if (normalized.endsWith("csv")) {
+                return CSV;
+            }
+            if (normalized.endsWith("ndjson") || normalized.endsWith("jsonl") || normalized.endsWith("json")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Неизвестный формат импорта: " + value);
+        }
+    }
+
+    private static final String[] CSV_COLUMNS = {"name", "dateOfBirth", "password", "emails", "phones", "initialBalance"};
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> csvColumns;
+    private long lineNumber;
+    private UserImportRow next;
+
+    public UserImportParser(InputStream input, Format format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == Format.CSV) {
+            readCsvHeader();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public UserImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        UserImportRow row = next;
+        next = null;
+        return row;
+    }
+
+    private UserImportRow readNext() {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        UserImportRow row;
+        try {
+            row = format == Format.CSV ? parseCsv(line) : objectMapper.readValue(line, UserImportRow.class);
+        } catch (Exception e) {
+            row = new UserImportRow();
+            row.setError("Не удалось разобрать строку: " + e.getMessage());
+        }
+        row.setLine(lineNumber);
+        return row;
+    }
+
+    private String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readCsvHeader() {
+        String header = readLine();
+        if (header == null) {
+            csvColumns = Map.of();
+            return;
+        }
+        List<String> names = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        csvColumns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            csvColumns.put(names.get(i).trim(), i);
+        }
+        for (String column : CSV_COLUMNS) {
+            if (!csvColumns.containsKey(column)) {
+                throw new IllegalArgumentException("В заголовке CSV нет колонки " + column);
+            }
+        }
+    }
+
+    private UserImportRow parseCsv(String line) {
+        List<String> values = splitCsv(line);
+        UserImportRow row = new UserImportRow();
+        row.setName(column(values, "name"));
+        String dateOfBirth = column(values, "dateOfBirth");
+        row.setDateOfBirth(dateOfBirth.isEmpty() ? null : LocalDate.parse(dateOfBirth));
+        row.setPassword(column(values, "password"));
+        row.setEmails(splitList(column(values, "emails")));
+        row.setPhones(splitList(column(values, "phones")));
+        String balance = column(values, "initialBalance");
+        row.setInitialBalance(balance.isEmpty() ? null : new BigDecimal(balance));
+        return row;
+    }
+
+    private String column(List<String> values, String name) {
+        int index = csvColumns.get(name);
+        return index < values.size() ? values.get(index).trim() : "";
+    }
+
+    private static List<String> splitList(String value) {
+        if (value.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.stream(value.split(";")).map(String::trim).filter(s -> !s.isEmpty()).toList());
+    }
+
+    // Поля в кавычках могут содержать запятые, кавычка внутри удваивается
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
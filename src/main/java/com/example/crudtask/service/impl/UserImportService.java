@@ -0,0 +1,326 @@
+package com.example.crudtask.service.impl;
+
+import com.example.crudtask.entity.Account;
+import com.example.crudtask.entity.EmailData;
+import com.example.crudtask.entity.Money;
+import com.example.crudtask.entity.PhoneData;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.UserImportRejection;
+import com.example.crudtask.entity.UserImportReport;
+import com.example.crudtask.entity.UserImportRow;
+import com.example.crudtask.service.ContactUniquenessFilter;
+import com.example.crudtask.service.UserSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Массовый импорт пользователей. Файл читается построчно порциями по
+ * {@code users.import.batch-size}; пароли порции хешируются на отдельном пуле,
+ * пока вставляется предыдущая порция. Порция вставляется одной транзакцией
+ * пакетами JDBC (id берутся блоками из последовательностей).
+ * <p>
+ * Строки с ошибками и дубликатами отклоняются, остальная порция вставляется.
+ * Если ограничение уникальности все же сработало (значение вставили параллельно),
+ * порция повторяется построчно, и отклоняются только нарушившие его строки.
+ */
+@Service
+public class UserImportService {
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ContactUniquenessFilter contactUniquenessFilter;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${users.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${users.import.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${users.import.progress-every:100000}")
+    private long progressEvery;
+
+    public UserImportReport importUsers(InputStream input, UserImportParser.Format format) {
+        Progress progress = new Progress(progressEvery);
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        // BCrypt занимает процессор, а не ждет ввода-вывода: здесь нужны платформенные потоки
+        ExecutorService hashPool = Executors.newFixedThreadPool(threads);
+        try {
+            UserImportParser parser = new UserImportParser(input, format, objectMapper);
+            List<PreparedRow> pending = null;
+            while (parser.hasNext()) {
+                List<PreparedRow> chunk = prepare(parser, hashPool, progress);
+                if (pending != null) {
+                    insert(pending, progress);
+                }
+                pending = chunk;
+            }
+            if (pending != null) {
+                insert(pending, progress);
+            }
+        } finally {
+            hashPool.shutdownNow();
+        }
+
+        // Пользователи добавлены в обход UserServiceImpl, поэтому индекс перестраивается целиком
+        if (progress.imported > 0 && userSearchIndex.isReady()) {
+            userSearchIndex.rebuild();
+        }
+
+        UserImportReport report = progress.report();
+        log.info("Импорт пользователей: строк {}, импортировано {}, отклонено {} за {} мс ({} строк/с)",
+                report.getTotalRows(), report.getImportedRows(), report.getRejectedRows(),
+                report.getDurationMillis(), Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+
+    private List<PreparedRow> prepare(UserImportParser parser, ExecutorService hashPool, Progress progress) {
+        List<PreparedRow> chunk = new ArrayList<>(batchSize);
+        while (chunk.size() < batchSize && parser.hasNext()) {
+            UserImportRow row = parser.next();
+            progress.total++;
+            String error = validate(row);
+            if (error != null) {
+                progress.reject(row.getLine(), error);
+                continue;
+            }
+            String password = row.getPassword();
+            CompletableFuture<String> hash = BCRYPT_HASH.matcher(password).matches()
+                    ? CompletableFuture.completedFuture(password)
+                    : CompletableFuture.supplyAsync(() -> passwordEncoder.encode(password), hashPool);
+            chunk.add(new PreparedRow(row, hash));
+        }
+        return chunk;
+    }
+
+    private String validate(UserImportRow row) {
+        if (row.getError() != null) {
+            return row.getError();
+        }
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "Не указано имя пользователя";
+        }
+        if (row.getPassword() == null || row.getPassword().isEmpty()) {
+            return "Не указан пароль";
+        }
+        row.setEmails(new ArrayList<>(new LinkedHashSet<>(row.getEmails())));
+        row.setPhones(new ArrayList<>(new LinkedHashSet<>(row.getPhones())));
+        if (row.getPhones().isEmpty()) {
+            return "Пользователь должен иметь хотя бы один номер телефона.";
+        }
+        if (row.getEmails().isEmpty()) {
+            return "Пользователь должен иметь хотя бы один email.";
+        }
+        if (row.getInitialBalance() == null || row.getInitialBalance().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Сумма должна быть положительной";
+        }
+        if (row.getInitialBalance().stripTrailingZeros().scale() > 2) {
+            return "Сумма должна быть в рублях и копейках";
+        }
+        return null;
+    }
+
+    private void insert(List<PreparedRow> chunk, Progress progress) {
+        List<PreparedRow> accepted = rejectDuplicates(chunk, progress);
+        for (PreparedRow prepared : accepted) {
+            try {
+                prepared.passwordHash = prepared.hash.join();
+            } catch (CompletionException e) {
+                prepared.rejected = true;
+                progress.reject(prepared.row.getLine(), "Не удалось захешировать пароль");
+            }
+        }
+        accepted.removeIf(prepared -> prepared.rejected);
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(accepted));
+        } catch (RuntimeException e) {
+            if (!ConstraintViolations.isConstraintViolation(e)) {
+                throw e;
+            }
+            log.debug("Порция импорта нарушила ограничение уникальности, повтор построчно", e);
+            List<PreparedRow> inserted = new ArrayList<>();
+            for (PreparedRow prepared : accepted) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(prepared)));
+                    inserted.add(prepared);
+                } catch (RuntimeException rowError) {
+                    if (!ConstraintViolations.isConstraintViolation(rowError)) {
+                        throw rowError;
+                    }
+                    progress.reject(prepared.row.getLine(), "Email или номер телефона уже используется другим пользователем");
+                }
+            }
+            accepted.retainAll(inserted);
+        }
+
+        for (PreparedRow prepared : accepted) {
+            prepared.row.getEmails().forEach(contactUniquenessFilter::registerEmail);
+            prepared.row.getPhones().forEach(contactUniquenessFilter::registerPhone);
+        }
+        progress.imported(accepted.size());
+    }
+
+    // Первое вхождение значения в файле выигрывает; уже занятые в базе значения отклоняются
+    private List<PreparedRow> rejectDuplicates(List<PreparedRow> chunk, Progress progress) {
+        Set<String> emails = new HashSet<>();
+        Set<String> phones = new HashSet<>();
+        List<PreparedRow> unique = new ArrayList<>(chunk.size());
+        for (PreparedRow prepared : chunk) {
+            UserImportRow row = prepared.row;
+            String duplicate = firstRepeated(row.getEmails(), emails);
+            if (duplicate == null) {
+                duplicate = firstRepeated(row.getPhones(), phones);
+            }
+            if (duplicate != null) {
+                progress.reject(row.getLine(), "Значение " + duplicate + " повторяется в файле");
+                continue;
+            }
+            emails.addAll(row.getEmails());
+            phones.addAll(row.getPhones());
+            unique.add(prepared);
+        }
+
+        Set<String> takenEmails = contactUniquenessFilter.findTakenEmails(emails);
+        Set<String> takenPhones = contactUniquenessFilter.findTakenPhones(phones);
+        if (takenEmails.isEmpty() && takenPhones.isEmpty()) {
+            return unique;
+        }
+        List<PreparedRow> accepted = new ArrayList<>(unique.size());
+        for (PreparedRow prepared : unique) {
+            if (prepared.row.getEmails().stream().anyMatch(takenEmails::contains)) {
+                progress.reject(prepared.row.getLine(), "Этот email уже используется другим пользователем");
+            } else if (prepared.row.getPhones().stream().anyMatch(takenPhones::contains)) {
+                progress.reject(prepared.row.getLine(), "Этот номер телефона уже используется другим пользователем");
+            } else {
+                accepted.add(prepared);
+            }
+        }
+        return accepted;
+    }
+
+    private static String firstRepeated(List<String> values, Set<String> seen) {
+        for (String value : values) {
+            if (seen.contains(value)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    // Как в DataInitializer: счет ссылается на пользователя, поэтому account_id
+    // проставляется отдельным UPDATE, который Hibernate тоже отправляет пакетом
+    private void persist(List<PreparedRow> rows) {
+        for (PreparedRow prepared : rows) {
+            UserImportRow row = prepared.row;
+            User user = new User();
+            user.setName(row.getName());
+            if (row.getDateOfBirth() != null) {
+                user.setDateOfBirth(java.sql.Date.valueOf(row.getDateOfBirth()));
+            }
+            user.setPassword(prepared.passwordHash);
+            user.setUserEmail(row.getEmails().get(0));
+            row.getEmails().forEach(email -> user.addEmail(new EmailData(email)));
+            row.getPhones().forEach(phone -> user.addPhone(new PhoneData(phone)));
+            entityManager.persist(user);
+
+            Account account = new Account(Money.of(row.getInitialBalance()));
+            account.setUser(user);
+            entityManager.persist(account);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static final class PreparedRow {
+        private final UserImportRow row;
+        private final CompletableFuture<String> hash;
+        private String passwordHash;
+        private boolean rejected;
+
+        private PreparedRow(UserImportRow row, CompletableFuture<String> hash) {
+            this.row = row;
+            this.hash = hash;
+        }
+    }
+
+    private static final class Progress {
+        private final long started = System.nanoTime();
+        private final List<UserImportRejection> rejections = new ArrayList<>();
+        private long total;
+        private long imported;
+        private long rejected;
+        private final long reportEvery;
+        private long nextReport;
+
+        private Progress(long reportEvery) {
+            this.reportEvery = reportEvery;
+            this.nextReport = reportEvery;
+        }
+
+        private void reject(long line, String reason) {
+            rejected++;
+            if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                rejections.add(new UserImportRejection(line, reason));
+            }
+        }
+
+        private void imported(int rows) {
+            imported += rows;
+            if (imported >= nextReport) {
+                nextReport = imported + reportEvery;
+                log.info("Импорт пользователей: импортировано {} ({} строк/с)", imported, Math.round(rowsPerSecond()));
+            }
+        }
+
+        private double rowsPerSecond() {
+            double seconds = (System.nanoTime() - started) / 1e9;
+            return seconds > 0 ? total / seconds : 0;
+        }
+
+        private UserImportReport report() {
+            long durationMillis = (System.nanoTime() - started) / 1_000_000;
+            return new UserImportReport(total, imported, rejected, durationMillis, rowsPerSecond(), rejections);
+        }
+    }
+}
@@ -6,91 +6,183 @@ import com.example.crudtask.dao.EmailDataDAO;
 import com.example.crudtask.dao.PhoneDataDAO;
 import com.example.crudtask.dao.UserDAO;
 import com.example.crudtask.entity.Account;
+import com.example.crudtask.entity.AccountOwner;
+import com.example.crudtask.entity.AccountView;
+import com.example.crudtask.entity.LedgerEntry;
+import com.example.crudtask.entity.Money;
 import com.example.crudtask.entity.EmailData;
+import com.example.crudtask.entity.EmailView;
 import com.example.crudtask.entity.PhoneData;
+import com.example.crudtask.entity.PhoneView;
 import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.UserDto;
+import com.example.crudtask.entity.UserKeysetPage;
+import com.example.crudtask.service.ContactUniquenessFilter;
+import com.example.crudtask.service.TokenVersionCache;
+import com.example.crudtask.service.UserSearchIndex;
 import com.example.crudtask.service.UserService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserServiceImpl implements UserService {
+    private static final String EMAIL_IN_USE = "Этот email уже используется другим пользователем";
+    private static final String PHONE_IN_USE = "Этот номер телефона уже используется другим пользователем";
+    // Время изменений пользователя; операцию различает тег method
+    private static final String MUTATION_TIMER = "crudtask.user.mutation";
+
     private final UserDAO userDAO;
     private final AccountDAO accountDAO;
     private final EmailDataDAO emailDataDAO;
     private final PhoneDataDAO phoneDataDAO;
     private final JwtUtil jwtUtil;
+    private final TokenVersionCache tokenVersionCache;
+    private final UserSearchIndex userSearchIndex;
+    private final ContactUniquenessFilter contactUniquenessFilter;
+    private final LedgerJournal ledgerJournal;
+    private final AccountBucketService accountBucketService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${users.export.chunk-size:500}")
+    private int exportChunkSize;
 
     @Autowired
-    public UserServiceImpl(UserDAO userDAO, AccountDAO accountDAO, EmailDataDAO emailDataDAO, PhoneDataDAO phoneDataDAO, JwtUtil jwtUtil) {
+    public UserServiceImpl(UserDAO userDAO, AccountDAO accountDAO, EmailDataDAO emailDataDAO, PhoneDataDAO phoneDataDAO, JwtUtil jwtUtil,
+                           TokenVersionCache tokenVersionCache, UserSearchIndex userSearchIndex,
+                           ContactUniquenessFilter contactUniquenessFilter, LedgerJournal ledgerJournal,
+                           AccountBucketService accountBucketService) {
         this.userDAO = userDAO;
         this.accountDAO = accountDAO;
         this.emailDataDAO = emailDataDAO;
         this.phoneDataDAO = phoneDataDAO;
         this.jwtUtil = jwtUtil;
+        this.tokenVersionCache = tokenVersionCache;
+        this.userSearchIndex = userSearchIndex;
+        this.contactUniquenessFilter = contactUniquenessFilter;
+        this.ledgerJournal = ledgerJournal;
+        this.accountBucketService = accountBucketService;
     }
 
     @Override
     public Optional<User> getUserById(Long userId) {
-        return userDAO.findById(userId);
+        return userDAO.findWithContactsById(userId);
     }
 
     @Override
-    public List<User> getAllUsers() {
-        return userDAO.findAll();
+    public List<UserDto> getAllUsers() {
+        return withContacts(userDAO.findAllDtos());
     }
 
     @Override
-    public List<PhoneData> getUserPhones(Long userId) {
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<UserDto> consumer) {
+        List<UserDto> chunk = new ArrayList<>(exportChunkSize);
+        try (Stream<UserDto> users = userDAO.streamAllDtos(exportChunkSize)) {
+            Iterator<UserDto> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == exportChunkSize || !iterator.hasNext()) {
+                    withContacts(chunk).forEach(consumer);
+                    chunk.clear();
+                    // Телефоны и email порции больше не нужны — отпускаем их из контекста
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<PhoneView> getUserPhones(Long userId) {
         return userDAO.findUserPhones(userId);
     }
 
     @Override
-    public List<EmailData> getUserEmails(Long userId) {
+    public List<EmailView> getUserEmails(Long userId) {
         return userDAO.findUserEmails(userId);
     }
 
     @Override
-    public Account getUserAccount(Long userId) {
-        return accountDAO.findByUserId(userId);
+    public AccountView getUserAccount(Long userId) {
+        return accountDAO.findViewByUserId(userId);
     }
 
-    public Long getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    private static List<Long> idsBetween(long[] ids, int from, int to) {
+        return Arrays.stream(ids, from, to).boxed().toList();
+    }
 
-        if (authentication != null) {
-            String username = authentication.getName();
-            User currentUser = userDAO.findByEmail(username);
-            return currentUser != null ? currentUser.getId() : null;
+    private List<UserDto> findByIds(List<Long> ids) {
+        return ids.isEmpty() ? new ArrayList<>() : withContacts(userDAO.findDtosByIds(ids));
+    }
+
+    // Телефоны и email всех пользователей списка догружаются двумя запросами,
+    // а не отдельным запросом на каждого пользователя
+    private List<UserDto> withContacts(List<UserDto> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Map<Long, UserDto> usersById = new HashMap<>();
+        for (UserDto user : users) {
+            usersById.put(user.getId(), user);
+        }
+        for (PhoneData phone : userDAO.findPhonesByUserIds(usersById.keySet())) {
+            usersById.get(phone.getUser().getId()).getPhones().add(phone);
+        }
+        for (EmailData email : userDAO.findEmailsByUserIds(usersById.keySet())) {
+            usersById.get(email.getUser().getId()).getEmails().add(email);
         }
+        return users;
+    }
 
-        return null;
+    public Long getCurrentUserId() {
+        return JwtUtil.getCurrentUserId();
+    }
+
+    private void requireCurrentUser(Long userId) {
+        if (!userId.equals(JwtUtil.getCurrentUserId())) {
+            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
+        }
     }
 
     @Override
     @Transactional
+    @Timed(MUTATION_TIMER)
     public User updateUser(Long userId, User updatedUser) {
+        requireCurrentUser(userId);
         User currentUser = userDAO.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-        if (!JwtUtil.getCurrentUsername().equals(currentUser.getUsername())) {
-            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
-        }
-
 
+        if (!Objects.equals(currentUser.getPassword(), updatedUser.getPassword())) {
+            currentUser.setTokenVersion(currentUser.getTokenVersion() + 1);
+        }
         currentUser.setName(updatedUser.getName());
         currentUser.setDateOfBirth(updatedUser.getDateOfBirth());
         currentUser.setPassword(updatedUser.getPassword());
@@ -99,7 +191,12 @@ public class UserServiceImpl implements UserService {
         updateEmails(currentUser, updatedUser);
         updateAccount(currentUser, updatedUser);
 
-        return userDAO.save(currentUser);
+        tokenVersionCache.invalidateUser(userId);
+        userSearchIndex.refreshUser(userId);
+        User savedUser = userDAO.save(currentUser);
+        savedUser.getPhones().forEach(phone -> contactUniquenessFilter.registerPhone(phone.getPhone()));
+        savedUser.getEmails().forEach(email -> contactUniquenessFilter.registerEmail(email.getEmail()));
+        return savedUser;
     }
 
     private void updatePhones(User currentUser, User updatedUser) {
@@ -144,7 +241,18 @@ public class UserServiceImpl implements UserService {
         if (updatedUser.getAccount() != null) {
             Account existingAccount = currentUser.getAccount();
             if (existingAccount != null) {
-                existingAccount.setBalance(updatedUser.getAccount().getBalance());
+                // Клиент видит баланс вместе с корзинами горячего счета, поэтому
+                // в основную строку записывается остаток за вычетом корзин
+                Money balance = updatedUser.getAccount().getBalance();
+                Money current = existingAccount.getTotalBalance();
+                if (balance != null && current != null && !balance.equals(current)) {
+                    ledgerJournal.append(new LedgerEntry(existingAccount.getId(),
+                            LedgerEntry.Type.ADJUSTMENT, balance.minus(current).toBigDecimal(), null));
+                }
+                if (balance != null && current != null) {
+                    balance = balance.minus(existingAccount.getBucketBalance());
+                }
+                existingAccount.setBalance(balance);
             } else {
                 Account newAccount = updatedUser.getAccount();
                 newAccount.setUser(currentUser);
@@ -155,66 +263,91 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional
+    @Timed(MUTATION_TIMER)
     public void deleteUser(Long userId) {
-        User currentUser = userDAO.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-        if (!JwtUtil.getCurrentUsername().equals(currentUser.getUsername())) {
-            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
-        }
+        requireCurrentUser(userId);
         User user = userDAO.findById(userId).orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
         userDAO.delete(user);
+        tokenVersionCache.invalidateUser(userId);
+        userSearchIndex.refreshUser(userId);
     }
 
     @Override
     @Transactional
-    public void deposit(Long userId, BigDecimal amount) {
-        User currentUser = userDAO.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-        if (!JwtUtil.getCurrentUsername().equals(currentUser.getUsername())) {
-            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
+    @Timed(MUTATION_TIMER)
+    public void deposit(Long userId, BigDecimal value) {
+        requireCurrentUser(userId);
+        Money amount = requirePositive(value);
+        AccountOwner account = accountDAO.findOwnerByUserId(userId);
+        if (account == null) {
+            throw new IllegalArgumentException("Счет пользователя не найден");
         }
-        Account account = accountDAO.findByUserId(userId);
-        account.setBalance(account.getBalance().add(amount));
-        accountDAO.save(account);
+        accountBucketService.credit(account, amount);
+        ledgerJournal.append(new LedgerEntry(account.getId(), LedgerEntry.Type.DEPOSIT, amount.toBigDecimal(), null));
     }
 
     @Override
     @Transactional
-    public void withdraw(Long userId, BigDecimal amount) {
-        User currentUser = userDAO.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-        if (!JwtUtil.getCurrentUsername().equals(currentUser.getUsername())) {
-            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
-        }
-        Account account = accountDAO.findByUserId(userId);
-        if (account.getBalance().compareTo(amount) < 0) {
+    @Timed(MUTATION_TIMER)
+    public void withdraw(Long userId, BigDecimal value) {
+        requireCurrentUser(userId);
+        Money amount = requirePositive(value);
+        AccountOwner account = accountDAO.findOwnerByUserId(userId);
+        if (account == null || !debit(account, amount)) {
             throw new IllegalArgumentException("Недостаточно средств на счете");
         }
-        account.setBalance(account.getBalance().subtract(amount));
-        accountDAO.save(account);
+        Long accountId = account.getId();
+        ledgerJournal.append(new LedgerEntry(accountId, LedgerEntry.Type.WITHDRAWAL, amount.negate().toBigDecimal(), null));
+    }
+
+    private boolean debit(AccountOwner account, Money amount) {
+        if (accountDAO.debit(account.getId(), amount) > 0) {
+            return true;
+        }
+        // Зачисления на горячий счет могут лежать в корзинах
+        return account.getBucketCount() > 0
+                && accountBucketService.fold(account.getId()).signum() != 0
+                && accountDAO.debit(account.getId(), amount) > 0;
+    }
+
+    // Фильтр не знает значений, вставленных другими узлами, поэтому окончательно
+    // уникальность проверяет ограничение в базе
+    private <T> void saveUnique(JpaRepository<T, Long> dao, T entity, String message) {
+        try {
+            dao.saveAndFlush(entity);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException(message, e);
+        }
+    }
+
+    private static Money requirePositive(BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Сумма должна быть положительной");
+        }
+        return Money.of(amount);
     }
 
     @Override
     @Transactional
+    @Timed(MUTATION_TIMER)
     public void addEmail(Long userId, String email) {
-        User currentUser = userDAO.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-        if (!JwtUtil.getCurrentUsername().equals(currentUser.getUsername())) {
-            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
+        requireCurrentUser(userId);
+        if (contactUniquenessFilter.isEmailTaken(email)) {
+            throw new IllegalArgumentException(EMAIL_IN_USE);
         }
-        if (emailDataDAO.existsByEmail(email)) {
-            throw new IllegalArgumentException("Этот email уже используется другим пользователем");
-        }
-        User user = userDAO.findById(userId).orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
+        User user = userDAO.getReferenceById(userId);
         EmailData emailData = new EmailData(user, email);
-        emailDataDAO.save(emailData);
+        saveUnique(emailDataDAO, emailData, EMAIL_IN_USE);
+        contactUniquenessFilter.registerEmail(email);
+        userSearchIndex.refreshUser(userId);
     }
 
     @Override
     @Transactional
+    @Timed(MUTATION_TIMER)
     public void updateEmail(Long userId, Long emailId, String newEmail) {
-        if (emailDataDAO.existsByEmail(newEmail)) {
-            throw new IllegalArgumentException("Этот email уже используется другим пользователем");
+        if (contactUniquenessFilter.isEmailTaken(newEmail)) {
+            throw new IllegalArgumentException(EMAIL_IN_USE);
         }
         EmailData emailData = emailDataDAO.findById(emailId)
                 .orElseThrow(() -> new IllegalArgumentException("Email не найден"));
@@ -224,17 +357,16 @@ public class UserServiceImpl implements UserService {
         }
 
         emailData.setEmail(newEmail);
-        emailDataDAO.save(emailData);
+        saveUnique(emailDataDAO, emailData, EMAIL_IN_USE);
+        contactUniquenessFilter.registerEmail(newEmail);
+        userSearchIndex.refreshUser(userId);
     }
 
     @Override
     @Transactional
+    @Timed(MUTATION_TIMER)
     public void deleteEmail(Long userId, Long emailId) {
-        User currentUser = userDAO.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-        if (!JwtUtil.getCurrentUsername().equals(currentUser.getUsername())) {
-            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
-        }
+        requireCurrentUser(userId);
         EmailData emailData = emailDataDAO.findById(emailId)
                 .orElseThrow(() -> new IllegalArgumentException("Email не найден"));
 
@@ -243,34 +375,31 @@ public class UserServiceImpl implements UserService {
         }
 
         emailDataDAO.delete(emailData);
+        userSearchIndex.refreshUser(userId);
     }
 
     @Override
     @Transactional
+    @Timed(MUTATION_TIMER)
     public void addPhone(Long userId, String phone) {
-        User currentUser = userDAO.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-        if (!JwtUtil.getCurrentUsername().equals(currentUser.getUsername())) {
-            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
-        }
-        if (phoneDataDAO.existsByPhone(phone)) {
-            throw new IllegalArgumentException("Этот номер телефона уже используется другим пользователем");
+        requireCurrentUser(userId);
+        if (contactUniquenessFilter.isPhoneTaken(phone)) {
+            throw new IllegalArgumentException(PHONE_IN_USE);
         }
-        User user = userDAO.findById(userId).orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
+        User user = userDAO.getReferenceById(userId);
         PhoneData phoneData = new PhoneData(user, phone);
-        phoneDataDAO.save(phoneData);
+        saveUnique(phoneDataDAO, phoneData, PHONE_IN_USE);
+        contactUniquenessFilter.registerPhone(phone);
+        userSearchIndex.refreshUser(userId);
     }
 
     @Override
     @Transactional
+    @Timed(MUTATION_TIMER)
     public void updatePhone(Long userId, Long phoneId, String newPhone) {
-        User currentUser = userDAO.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-        if (!JwtUtil.getCurrentUsername().equals(currentUser.getUsername())) {
-            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
-        }
-        if (phoneDataDAO.existsByPhone(newPhone)) {
-            throw new IllegalArgumentException("Этот номер телефона уже используется другим пользователем");
+        requireCurrentUser(userId);
+        if (contactUniquenessFilter.isPhoneTaken(newPhone)) {
+            throw new IllegalArgumentException(PHONE_IN_USE);
         }
         PhoneData phoneData = phoneDataDAO.findById(phoneId)
                 .orElseThrow(() -> new IllegalArgumentException("Номер телефона не найден"));
@@ -280,17 +409,16 @@ public class UserServiceImpl implements UserService {
         }
 
         phoneData.setPhone(newPhone);
-        phoneDataDAO.save(phoneData);
+        saveUnique(phoneDataDAO, phoneData, PHONE_IN_USE);
+        contactUniquenessFilter.registerPhone(newPhone);
+        userSearchIndex.refreshUser(userId);
     }
 
     @Override
     @Transactional
+    @Timed(MUTATION_TIMER)
     public void deletePhone(Long userId, Long phoneId) {
-        User currentUser = userDAO.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-        if (!JwtUtil.getCurrentUsername().equals(currentUser.getUsername())) {
-            throw new IllegalArgumentException("Может изменяться только текущий пользователь");
-        }
+        requireCurrentUser(userId);
         PhoneData phoneData = phoneDataDAO.findById(phoneId)
                 .orElseThrow(() -> new IllegalArgumentException("Номер телефона не найден"));
 
@@ -299,11 +427,66 @@ public class UserServiceImpl implements UserService {
         }
 
         phoneDataDAO.delete(phoneData);
+        userSearchIndex.refreshUser(userId);
     }
 
     @Override
-    public Page<User> searchUsers(Optional<LocalDate> dateOfBirth, Optional<String> phone, Optional<String> name, Optional<String> email, int page, int size) {
+    public Page<UserDto> searchUsers(Optional<LocalDate> dateOfBirth, Optional<String> phone, Optional<String> name, Optional<String> email, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").ascending());
-        return userDAO.findUsersByFilters(dateOfBirth, phone, name, email, pageable);
+        if (userSearchIndex.isSearchReady()) {
+            // Фильтры разрешаются в индексе, база читается только по первичному ключу
+            long[] ids = userSearchIndex.search(dateOfBirth, phone, name, email);
+            int from = (int) Math.min(pageable.getOffset(), ids.length);
+            int to = Math.min(from + size, ids.length);
+            List<Long> pageIds = idsBetween(ids, from, to);
+            List<UserDto> users = findByIds(pageIds);
+            if (matchAll(users, pageIds, dateOfBirth, phone, name, email)) {
+                return new PageImpl<>(users, pageable, ids.length);
+            }
+        }
+
+        Page<UserDto> users = userDAO.findUsersByFilters(dateOfBirth, phone, name, email, pageable);
+        withContacts(users.getContent());
+        return users;
+    }
+
+    @Override
+    public UserKeysetPage searchUsersAfter(Optional<LocalDate> dateOfBirth, Optional<String> phone, Optional<String> name, Optional<String> email, Long lastId, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+        // Берем на одну запись больше, чтобы узнать, есть ли следующая страница, без отдельного count
+        if (userSearchIndex.isSearchReady()) {
+            long[] ids = userSearchIndex.search(dateOfBirth, phone, name, email);
+            int from = 0;
+            if (lastId != null) {
+                int position = Arrays.binarySearch(ids, lastId);
+                from = position >= 0 ? position + 1 : -position - 1;
+            }
+            List<Long> pageIds = idsBetween(ids, from, (int) Math.min(ids.length, from + size + 1L));
+            List<UserDto> users = findByIds(pageIds);
+            if (matchAll(users, pageIds, dateOfBirth, phone, name, email)) {
+                return keysetPage(users, size);
+            }
+        }
+        List<UserDto> users = userDAO.findUsersByFiltersAfter(dateOfBirth, phone, name, email, lastId, PageRequest.ofSize(size + 1));
+        UserKeysetPage page = keysetPage(users, size);
+        withContacts(page.getContent());
+        return page;
+    }
+
+    private static UserKeysetPage keysetPage(List<UserDto> users, int size) {
+        boolean hasNext = users.size() > size;
+        List<UserDto> content = hasNext ? users.subList(0, size) : users;
+        Long nextLastId = content.isEmpty() ? null : content.get(content.size() - 1).getId();
+        return new UserKeysetPage(content, nextLastId, hasNext);
+    }
+
+    // Индекс мог отстать от базы: строки, загруженные по его id, сверяются с фильтрами,
+    // и при расхождении запрос выполняется в базе
+    private static boolean matchAll(List<UserDto> users, List<Long> ids, Optional<LocalDate> dateOfBirth,
+                                    Optional<String> phone, Optional<String> name, Optional<String> email) {
+        return users.size() == ids.size()
+                && users.stream().allMatch(user -> UserSearchIndex.matches(user, dateOfBirth, phone, name, email));
     }
 }
\ No newline at end of file
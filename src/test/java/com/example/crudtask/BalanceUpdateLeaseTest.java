@@ -0,0 +1,105 @@
+package com.example.crudtask;
+
+import com.example.crudtask.service.impl.SchedulerLeaseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BalanceUpdateLeaseTest {
+
+    private static final int NODES = 3;
+    private static final long TTL_MILLIS = 1000;
+    private static final String LEASE = "balance-update";
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void startNodes() {
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new SpringApplicationBuilder(CrudTaskApplication.class).run(
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:h2:mem:leasetest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                    "--balance.update.initial-delay-ms=3600000",
+                    "--scheduler.lease.ttl-ms=" + TTL_MILLIS));
+        }
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+        nodes.clear();
+    }
+
+    @Test
+    void exactlyOneNodeAcquiresTheLeasePerTick() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(NODES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (ConfigurableApplicationContext node : nodes) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return lease(node).tryAcquire(LEASE);
+            }));
+        }
+        start.countDown();
+
+        int leaders = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                leaders++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, leaders);
+    }
+
+    @Test
+    void anotherNodeTakesOverWhenTheLeaderStopsRenewing() throws Exception {
+        SchedulerLeaseService leader = lease(nodes.get(0));
+        SchedulerLeaseService follower = lease(nodes.get(1));
+
+        assertTrue(leader.tryAcquire(LEASE));
+        assertFalse(follower.tryAcquire(LEASE));
+        assertTrue(leader.tryAcquire(LEASE));
+
+        Thread.sleep(TTL_MILLIS + 500);
+
+        assertTrue(follower.tryAcquire(LEASE));
+        assertFalse(leader.tryAcquire(LEASE));
+    }
+
+    @Test
+    void newLeaderDoesNotRepeatTheRunOfTheCurrentPeriod() throws Exception {
+        SchedulerLeaseService leader = lease(nodes.get(0));
+        SchedulerLeaseService follower = lease(nodes.get(1));
+        Duration period = Duration.ofSeconds(10);
+
+        assertTrue(leader.tryStartRun(LEASE, period));
+        assertFalse(leader.tryStartRun(LEASE, period));
+
+        Thread.sleep(TTL_MILLIS + 500);
+
+        // аренда перешла, но срок следующего запуска хранится в базе
+        assertTrue(follower.tryAcquire(LEASE));
+        assertFalse(follower.tryStartRun(LEASE, period));
+    }
+
+    private SchedulerLeaseService lease(ConfigurableApplicationContext node) {
+        return node.getBean(SchedulerLeaseService.class);
+    }
+}
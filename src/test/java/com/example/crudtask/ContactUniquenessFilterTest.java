@@ -0,0 +1,65 @@
+package com.example.crudtask;
+
+import com.example.crudtask.entity.User;
+import com.example.crudtask.service.ContactUniquenessFilter;
+import com.example.crudtask.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContactUniquenessFilterTest extends IntegrationTest {
+
+    @Autowired
+    private ContactUniquenessFilter filter;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void authenticate() {
+        user = createUser("1000.00");
+        TestAuth.authenticate(user);
+    }
+
+    @Test
+    void definiteNegativesSkipTheDatabaseAndInsertsAreRemembered() {
+        assertTrue(filter.emails().isReady());
+        long skipped = filter.emails().getSkippedQueries();
+
+        assertFalse(filter.isEmailTaken("nobody@mail.com"));
+        assertEquals(skipped + 1, filter.emails().getSkippedQueries());
+        assertTrue(filter.isEmailTaken("petrov@mail.com"));
+
+        userService.addEmail(user.getId(), "filter.second@mail.com");
+        assertTrue(filter.isEmailTaken("filter.second@mail.com"));
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.addEmail(user.getId(), "filter.second@mail.com"));
+
+        assertTrue(filter.emails().getBitSize() > 0);
+        assertTrue(filter.emails().getExpectedFalsePositiveRate() < 0.01);
+    }
+
+    @Test
+    void uniqueConstraintCatchesValuesUnknownToTheFilter() {
+        // Как будто телефон вставил другой узел: фильтр этого узла о нем не знает
+        Long otherUserId = createUser("1000.00").getId();
+        jdbcTemplate.update("INSERT INTO phone_data (user_id, phone) VALUES (?, ?)", otherUserId, "79990001122");
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> userService.addPhone(user.getId(), "79990001122"));
+        assertEquals("Этот номер телефона уже используется другим пользователем", error.getMessage());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM phone_data WHERE user_id = ?", Integer.class, user.getId()));
+    }
+}
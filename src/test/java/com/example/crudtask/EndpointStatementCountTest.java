@@ -0,0 +1,148 @@
+package com.example.crudtask;
+
+import com.example.crudtask.service.impl.BalanceUpdateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Число обращений к базе на запрос к настоящим эндпоинтам, вместе с фильтром JWT.
+ * Превышение бюджета роняет сборку; фактические числа и SQL пишутся в
+ * target/statement-counts.md. Токен проверяется по уже прогретому кэшу версий.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:statementcounttest;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@Import(StatementCounting.class)
+class EndpointStatementCountTest {
+
+    private static final Path REPORT = Path.of("target", "statement-counts.md");
+    private static final Map<String, String> REPORT_ROWS = new ConcurrentSkipListMap<>();
+    private static final String LOGIN = "{\"username\":\"ivanov@mail.com\",\"password\":\"password123\"}";
+
+    private static String token;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private BalanceUpdateService balanceUpdateService;
+
+    @BeforeEach
+    void authenticate() throws Exception {
+        if (token == null) {
+            token = login();
+            mockMvc.perform(get("/api/users/1").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+            // Первые записи журнала выбирают блок из 50 id последовательности (на свежей
+            // последовательности — за два запроса), дальше он расходуется без запросов
+            for (int i = 0; i < 2; i++) {
+                mockMvc.perform(post("/api/users/1/deposit?amount=1.00").header("Authorization", "Bearer " + token))
+                        .andExpect(status().isOk());
+            }
+        }
+    }
+
+    @Test
+    void login_() throws Exception {
+        List<String> statements = StatementCounting.record(this::login);
+        assertBudget(1, "POST /api/auth/login", statements);
+    }
+
+    @Test
+    void userReads() throws Exception {
+        assertStatements(1, "GET /api/users/{id}", get("/api/users/1"));
+        assertStatements(1, "GET /api/users/{id}/phones", get("/api/users/1/phones"));
+        assertStatements(1, "GET /api/users/{id}/emails", get("/api/users/1/emails"));
+        assertStatements(1, "GET /api/users/{id}/account", get("/api/users/1/account"));
+        assertStatements(3, "GET /api/users", get("/api/users"));
+        assertStatements(3, "GET /api/users/search", get("/api/users/search?size=2"));
+        assertStatements(3, "GET /api/users/search/keyset", get("/api/users/search/keyset?size=2"));
+    }
+
+    @Test
+    void balanceMutations() throws Exception {
+        // Записи журнала вставляются в той же транзакции, что и изменение баланса
+        assertStatements(3, "POST /api/users/{id}/deposit", post("/api/users/1/deposit?amount=10.00"));
+        assertStatements(3, "POST /api/users/{id}/withdraw", post("/api/users/1/withdraw?amount=5.00"));
+        assertStatements(4, "POST /api/transfer", post("/api/transfer?transferToId=2&value=1.00"));
+        assertStatements(6, "POST /api/transfer (Idempotency-Key)",
+                post("/api/transfer?transferToId=2&value=1.00").header("Idempotency-Key", "statement-count-1"));
+    }
+
+    @Test
+    void contactMutations() throws Exception {
+        assertStatements(4, "POST /api/users/{id}/emails", post("/api/users/1/emails?email=counted@mail.com"));
+        assertStatements(4, "POST /api/users/{id}/phones", post("/api/users/1/phones?phone=79990001122"));
+    }
+
+    @AfterAll
+    static void writeReport() throws IOException {
+        StringBuilder report = new StringBuilder("| Endpoint | Budget | Statements |\n|---|---|---|\n");
+        StringBuilder details = new StringBuilder();
+        REPORT_ROWS.forEach((endpoint, row) -> {
+            int split = row.indexOf('\n');
+            report.append(row, 0, split).append('\n');
+            details.append("\n### ").append(endpoint).append("\n\n").append(row.substring(split + 1));
+        });
+        Files.createDirectories(REPORT.getParent());
+        Files.writeString(REPORT, report.append(details).toString());
+    }
+
+    private String login() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(LOGIN))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("jwt").asText();
+    }
+
+    private void assertStatements(int budget, String endpoint, MockHttpServletRequestBuilder request) throws Exception {
+        List<String> statements = StatementCounting.record(() -> {
+            MvcResult result = mockMvc.perform(request.header("Authorization", "Bearer " + token)).andReturn();
+            if (result.getRequest().isAsyncStarted()) {
+                result = mockMvc.perform(asyncDispatch(result)).andReturn();
+            }
+            int statusCode = result.getResponse().getStatus();
+            assertTrue(statusCode < 300, endpoint + ": HTTP " + statusCode + " " + result.getResponse().getContentAsString());
+        });
+        assertBudget(budget, endpoint, statements);
+    }
+
+    private static void assertBudget(int budget, String endpoint, List<String> statements) {
+        StringBuilder row = new StringBuilder()
+                .append("| ").append(endpoint).append(" | ").append(budget).append(" | ").append(statements.size()).append(" |\n");
+        statements.forEach(sql -> row.append("- `").append(sql).append("`\n"));
+        REPORT_ROWS.put(endpoint, row.toString());
+        assertTrue(statements.size() <= budget,
+                endpoint + ": " + statements.size() + " statements, budget " + budget + "\n" + String.join("\n", statements));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.crudtask;
+
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.entity.Account;
+import com.example.crudtask.entity.Money;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.service.UserService;
+import com.example.crudtask.service.impl.AccountBucketService;
+import com.example.crudtask.service.impl.LedgerReconciliationService;
+import com.example.crudtask.service.impl.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotAccountBucketTest extends IntegrationTest {
+
+    private static final int TRANSFERS = 200;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountBucketService accountBucketService;
+
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+
+    @Autowired
+    private AccountDAO accountDAO;
+
+    @Test
+    void creditsToHotAccountLandInBucketsAndFoldBack() throws Exception {
+        User hot = createUser("1500.00");
+        Long hotAccountId = accountDAO.findIdByUserId(hot.getId());
+        List<User> senders = List.of(createUser("1000.00"), createUser("2000.00"));
+        List<User> users = List.of(hot, senders.get(0), senders.get(1));
+        BigDecimal totalBefore = totalBalance(users);
+        BigDecimal hotBefore = userService.getUserAccount(hot.getId()).getBalance().toBigDecimal();
+        accountBucketService.setBucketCount(hotAccountId, 4);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            User from = senders.get(i % senders.size());
+            futures.add(pool.submit(() -> {
+                TestAuth.authenticate(from);
+                try {
+                    transferService.transferMoney(from.getId(), hot.getId(), AMOUNT);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        BigDecimal credited = AMOUNT.multiply(BigDecimal.valueOf(TRANSFERS));
+        assertEquals(0, credited.compareTo(bucketBalance(hotAccountId).toBigDecimal()));
+        assertEquals(0, hotBefore.add(credited).compareTo(userService.getUserAccount(hot.getId()).getBalance().toBigDecimal()));
+        assertEquals(0, totalBefore.compareTo(totalBalance(users)));
+        assertTrue(reconciliationService.reconcile().getDrifts().isEmpty());
+
+        // Списание больше основной строки забирает деньги из корзин
+        TestAuth.authenticate(hot);
+        BigDecimal everything = userService.getUserAccount(hot.getId()).getBalance().toBigDecimal();
+        transferService.transferMoney(hot.getId(), senders.get(0).getId(), everything);
+        assertEquals(0, userService.getUserAccount(hot.getId()).getBalance().toBigDecimal().signum());
+
+        userService.deposit(hot.getId(), credited);
+        accountBucketService.compact();
+        assertEquals(0, bucketBalance(hotAccountId).signum());
+        assertEquals(0, credited.compareTo(accountDAO.findById(hotAccountId).orElseThrow().getBalance().toBigDecimal()));
+        assertEquals(0, totalBefore.add(credited).compareTo(totalBalance(users)));
+        assertTrue(reconciliationService.reconcile().getDrifts().isEmpty());
+    }
+
+    // Остаток в корзинах: полный баланс счета минус основная строка
+    private Money bucketBalance(Long accountId) {
+        Account account = accountDAO.findById(accountId).orElseThrow();
+        return account.getTotalBalance().minus(account.getBalance());
+    }
+
+    private BigDecimal totalBalance(List<User> users) {
+        return users.stream()
+                .map(user -> accountDAO.findById(accountDAO.findIdByUserId(user.getId())).orElseThrow())
+                .map(Account::getTotalBalance)
+                .map(Money::toBigDecimal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.crudtask;
+
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.Account;
+import com.example.crudtask.entity.EmailData;
+import com.example.crudtask.entity.Money;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.service.ContactUniquenessFilter;
+import com.example.crudtask.service.UserSearchIndex;
+import com.example.crudtask.service.impl.BalanceUpdateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Общая конфигурация интеграционных тестов. Наследники без собственной
+ * {@link SpringBootTest} работают в одном контексте Spring и на одной базе H2,
+ * поэтому тесты, которые меняют балансы, заводят своих пользователей через
+ * {@link #createUser} и не трогают чужие счета. Тест, которому нужны другие
+ * свойства приложения, объявляет свою {@link SpringBootTest} с отдельной базой.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integrationtest;DB_CLOSE_DELAY=-1",
+        // корзины горячих счетов сворачиваются только явным вызовом compact()
+        "account.buckets.compact-ms=3600000"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+abstract class IntegrationTest {
+
+    static final String PASSWORD = "password123";
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    // Начисление процентов по расписанию меняет сумму балансов, поэтому в тестах оно отключено
+    @MockBean
+    protected BalanceUpdateService balanceUpdateService;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private AccountDAO accountDAO;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private ContactUniquenessFilter contactUniquenessFilter;
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Создает пользователя с паролем {@link #PASSWORD}, уникальной почтой и
+     * счетом. Начальный баланс счета служит точкой отсчета журнала.
+     */
+    protected User createUser(String balance) {
+        int number = USERS.incrementAndGet();
+        String email = "test" + number + "@mail.com";
+        User user = transactionTemplate.execute(status -> {
+            User created = new User();
+            created.setName("Тестовый Пользователь " + number);
+            created.setPassword(passwordEncoder.encode(PASSWORD));
+            created.setUserEmail(email);
+            created.addEmail(new EmailData(email));
+            userDAO.save(created);
+
+            Account account = new Account(Money.of(balance));
+            account.setUser(created);
+            accountDAO.save(account);
+            return created;
+        });
+        userSearchIndex.refreshUser(user.getId());
+        contactUniquenessFilter.registerEmail(email);
+        return user;
+    }
+
+    /** Входит через {@code /api/auth/login} и возвращает выданный JWT. */
+    protected String login(User user, String password) throws Exception {
+        String credentials = objectMapper.writeValueAsString(Map.of("username", user.getUserEmail(), "password", password));
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("jwt").asText();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.crudtask;
+
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.dao.LedgerEntryDAO;
+import com.example.crudtask.entity.LedgerDrift;
+import com.example.crudtask.entity.LedgerEntry;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.service.UserService;
+import com.example.crudtask.service.impl.ChunkedBalanceUpdateService;
+import com.example.crudtask.service.impl.LedgerReconciliationService;
+import com.example.crudtask.service.impl.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerTest extends IntegrationTest {
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ChunkedBalanceUpdateService chunkedBalanceUpdateService;
+
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+
+    @Autowired
+    private LedgerEntryDAO ledgerEntryDAO;
+
+    @Autowired
+    private AccountDAO accountDAO;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void balanceChangesAreJournaledAndReconcile() {
+        User payer = createUser("1000.00");
+        User payee = createUser("1500.00");
+        Long payerAccount = accountDAO.findIdByUserId(payer.getId());
+        Long payeeAccount = accountDAO.findIdByUserId(payee.getId());
+
+        TestAuth.authenticate(payer);
+        transferService.transferMoney(payer.getId(), payee.getId(), new BigDecimal("25.00"));
+        userService.deposit(payer.getId(), new BigDecimal("5.00"));
+        userService.withdraw(payer.getId(), new BigDecimal("1.50"));
+        chunkedBalanceUpdateService.updateBalances();
+
+        List<LedgerEntry> entries = ledgerEntryDAO.findByAccountIdOrderById(payerAccount);
+        assertEquals(List.of(LedgerEntry.Type.TRANSFER, LedgerEntry.Type.DEPOSIT,
+                LedgerEntry.Type.WITHDRAWAL, LedgerEntry.Type.INTEREST), entries.stream().map(LedgerEntry::getType).toList());
+        assertEquals(0, new BigDecimal("-25.00").compareTo(entries.get(0).getAmount()));
+        assertEquals(payeeAccount, entries.get(0).getCounterpartyAccountId());
+        assertTrue(reconciliationService.reconcile().getDrifts().isEmpty());
+
+        // Изменение в обход сервисов журнал не видит
+        jdbcTemplate.update("UPDATE account SET balance = balance + 1 WHERE id = ?", payeeAccount);
+        List<LedgerDrift> drifts = reconciliationService.reconcile().getDrifts();
+        assertEquals(1, drifts.size());
+        assertEquals(payeeAccount, drifts.get(0).getAccountId());
+        assertEquals(0, BigDecimal.ONE.compareTo(drifts.get(0).getDifference()));
+
+        // База общая для интеграционных тестов, поэтому расхождение убирается
+        jdbcTemplate.update("UPDATE account SET balance = balance - 1 WHERE id = ?", payeeAccount);
+        assertTrue(reconciliationService.reconcile().getDrifts().isEmpty());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.crudtask;
+
+import com.example.crudtask.entity.User;
+import com.example.crudtask.service.impl.TransferService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MetricsEndpointTest extends IntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void prometheusEndpointExposesTimersPoolAndHibernateStatistics() throws Exception {
+        User from = createUser("1000.00");
+        User to = createUser("1500.00");
+        // контекст общий с другими тестами переводов, поэтому считается прирост таймера
+        long transfersBefore = transferCount();
+        TestAuth.authenticate(from);
+        try {
+            transferService.transferMoney(from.getId(), to.getId(), new BigDecimal("1.00"));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        // перегрузка без ключа идемпотентности записывается в таймер один раз
+        assertEquals(transfersBefore + 1, transferCount());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("crudtask_transfer_seconds_bucket")))
+                .andExpect(content().string(containsString("crudtask_ledger_journal_entries_total")))
+                .andExpect(content().string(containsString("crudtask_contacts_bloom_bits{contact=\"email\"}")))
+                .andExpect(content().string(containsString("crudtask_contacts_bloom_fpp_expected{contact=\"phone\"}")))
+                .andExpect(content().string(containsString("crudtask_contacts_bloom_fpp_observed{contact=\"email\"}")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("hibernate_sessions_open_total")));
+    }
+
+    // Таймер переводов размечен исключением, поэтому счетчики всех его рядов складываются
+    private long transferCount() {
+        return meterRegistry.find("crudtask.transfer").timers().stream().mapToLong(Timer::count).sum();
+    }
+}
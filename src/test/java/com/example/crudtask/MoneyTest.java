@@ -0,0 +1,55 @@
+package com.example.crudtask;
+
+import com.example.crudtask.entity.Money;
+import com.example.crudtask.entity.MoneyConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    void keepsKopecksExactly() {
+        assertEquals(100_050, Money.of("1000.50").getKopecks());
+        assertEquals(Money.of("1000.5"), Money.of(new BigDecimal("1000.500")));
+        assertEquals(new BigDecimal("0.30"), Money.of("0.10").plus(Money.of("0.20")).toBigDecimal());
+        assertEquals(Money.of("-0.01"), Money.ZERO.minus(Money.ofKopecks(1)));
+
+        assertThrows(IllegalArgumentException.class, () -> Money.of("0.001"));
+        assertThrows(IllegalArgumentException.class, () -> Money.of("100000000000000000"));
+        assertThrows(ArithmeticException.class, () -> Money.ofKopecks(Long.MAX_VALUE).plus(Money.ofKopecks(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofKopecks(Long.MIN_VALUE).negate());
+    }
+
+    @Test
+    void roundsPercentLikeSql() {
+        // те же проценты, что в AccountDAO.ACCRUED_BALANCE
+        for (String value : new String[]{"0.05", "0.15", "0.25", "1.35", "1000.00", "1234.56", "-0.05", "-1234.56"}) {
+            BigDecimal rubles = new BigDecimal(value);
+            Money money = Money.of(rubles);
+            assertEquals(rubles.multiply(new BigDecimal("1.10")).setScale(2, RoundingMode.HALF_UP),
+                    money.multiplyBasisPoints(11_000).toBigDecimal(), value);
+            assertEquals(rubles.multiply(new BigDecimal("2.07")).setScale(2, RoundingMode.HALF_UP),
+                    money.multiplyBasisPoints(20_700).toBigDecimal(), value);
+        }
+        assertThrows(ArithmeticException.class, () -> Money.ofKopecks(Long.MAX_VALUE / 2).multiplyBasisPoints(11_000));
+    }
+
+    @Test
+    void mapsToColumnAndJson() throws Exception {
+        MoneyConverter converter = new MoneyConverter();
+        assertEquals(new BigDecimal("1500.00"), converter.convertToDatabaseColumn(Money.of("1500")));
+        assertEquals(Money.of("1500.00"), converter.convertToEntityAttribute(new BigDecimal("1500.00")));
+        assertNull(converter.convertToEntityAttribute(null));
+
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals("1000.50", mapper.writeValueAsString(Money.of("1000.5")));
+        assertEquals(Money.of("12.30"), mapper.readValue("12.3", Money.class));
+    }
+}
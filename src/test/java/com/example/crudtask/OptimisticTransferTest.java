@@ -0,0 +1,121 @@
+package com.example.crudtask;
+
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.Account;
+import com.example.crudtask.entity.Money;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.service.impl.LedgerReconciliationService;
+import com.example.crudtask.service.impl.OptimisticRetry;
+import com.example.crudtask.service.impl.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:optimistictest;DB_CLOSE_DELAY=-1",
+        "transfer.concurrency=optimistic",
+        "transfer.optimistic.max-attempts=3"
+})
+class OptimisticTransferTest extends IntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS = 1000;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private AccountDAO accountDAO;
+
+    @Test
+    void contendedTransfersConvergeWithoutLostUpdates() throws Exception {
+        List<User> users = userDAO.findAll();
+        BigDecimal totalBefore = totalBalance();
+
+        AtomicInteger completed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                User from = users.get(random.nextInt(users.size()));
+                User to = users.get(random.nextInt(users.size()));
+                TestAuth.authenticate(from);
+                try {
+                    transferService.transferMoney(from.getId(), to.getId(), BigDecimal.valueOf(random.nextInt(1, 50_000), 2));
+                    completed.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // недостаточно средств
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertTrue(completed.get() > 0);
+        assertEquals(0, totalBefore.compareTo(totalBalance()));
+        for (Account account : accountDAO.findAll()) {
+            assertTrue(account.getBalance().signum() >= 0);
+        }
+        assertTrue(reconciliationService.reconcile().getDrifts().isEmpty());
+    }
+
+    @Test
+    void conflictsAreRetriedUntilAttemptsRunOut() {
+        AtomicInteger calls = new AtomicInteger();
+        long conflictsBefore = optimisticRetry.getConflicts();
+
+        String result = optimisticRetry.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("конфликт");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, optimisticRetry.getConflicts() - conflictsBefore);
+        assertThrows(OptimisticLockingFailureException.class, () -> optimisticRetry.execute(() -> {
+            throw new OptimisticLockingFailureException("всегда конфликт");
+        }));
+        assertEquals("под блокировкой", optimisticRetry.execute(() -> {
+            throw new OptimisticLockingFailureException("всегда конфликт");
+        }, () -> "под блокировкой"));
+    }
+
+    private BigDecimal totalBalance() {
+        return accountDAO.findAll().stream()
+                .map(Account::getBalance)
+                .map(Money::toBigDecimal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
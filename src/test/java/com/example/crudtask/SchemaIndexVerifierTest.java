@@ -0,0 +1,35 @@
+package com.example.crudtask;
+
+import com.example.crudtask.config.SchemaIndexVerifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaIndexVerifierTest {
+
+    @Test
+    void failsWhenLookupIndexesAreMissing() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:noindexes;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE user_table (id BIGINT PRIMARY KEY, name VARCHAR(500), date_of_birth DATE)");
+        jdbc.execute("CREATE TABLE email_data (id BIGINT PRIMARY KEY, email VARCHAR(200))");
+        jdbc.execute("CREATE TABLE phone_data (id BIGINT PRIMARY KEY, phone VARCHAR(255))");
+        jdbc.execute("CREATE INDEX ix_user_table_name ON user_table (name)");
+        jdbc.execute("CREATE INDEX ix_user_table_date_of_birth ON user_table (date_of_birth)");
+        // индекс есть, но не уникальный
+        jdbc.execute("CREATE INDEX ix_email_data_email ON email_data (email)");
+
+        SchemaIndexVerifier verifier = new SchemaIndexVerifier(dataSource);
+        IllegalStateException error = assertThrows(IllegalStateException.class, verifier::verify);
+        assertTrue(error.getMessage().contains("unique email_data(email)"));
+        assertTrue(error.getMessage().contains("unique phone_data(phone)"));
+
+        jdbc.execute("CREATE UNIQUE INDEX ux_email_data_email ON email_data (email)");
+        jdbc.execute("CREATE UNIQUE INDEX ux_phone_data_phone ON phone_data (phone)");
+        assertDoesNotThrow(verifier::verify);
+    }
+}
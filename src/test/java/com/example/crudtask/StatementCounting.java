@@ -0,0 +1,78 @@
+package com.example.crudtask;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Подсчет JDBC-запросов для тестов: источник данных оборачивается datasource-proxy,
+ * а {@link #record} собирает запросы, выполненные текущим потоком. Запросы фоновых
+ * потоков (журнал, планировщик) в подсчет не попадают. Пакет JDBC считается
+ * одним обращением к базе.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class StatementCounting {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    @Bean
+    static BeanPostProcessor statementCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new Recorder())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Выполняет действие и возвращает SQL запросов, которые оно отправило в базу.
+     */
+    public static List<String> record(Action action) throws Exception {
+        List<String> statements = new ArrayList<>();
+        RECORDED.set(statements);
+        try {
+            action.run();
+        } finally {
+            RECORDED.remove();
+        }
+        return statements;
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private static final class Recorder implements QueryExecutionListener {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            List<String> statements = RECORDED.get();
+            if (statements == null) {
+                return;
+            }
+            String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+            statements.add(execInfo.isBatch() ? "[batch x" + execInfo.getBatchSize() + "] " + sql : sql);
+        }
+    }
+}
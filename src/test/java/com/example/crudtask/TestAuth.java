@@ -0,0 +1,22 @@
+package com.example.crudtask;
+
+import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.UserPrincipal;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Аутентификация в тестах сервисного слоя без фильтра JWT: пользователь
+ * кладется в контекст безопасности текущего потока.
+ */
+final class TestAuth {
+
+    private TestAuth() {
+    }
+
+    static void authenticate(User user) {
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getUserEmail(), user.getTokenVersion());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.crudtask;
+
+import com.example.crudtask.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Смена пароля увеличивает версию токена, и фильтр JWT перестает принимать
+ * токены, выданные до нее.
+ */
+class TokenRevocationTest extends IntegrationTest {
+
+    private static final String NEW_PASSWORD = "password456";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Test
+    void passwordChangeRevokesIssuedTokens() throws Exception {
+        User user = createUser("100.00");
+        String oldToken = login(user, PASSWORD);
+        mockMvc.perform(get("/api/users/{userId}", user.getId()).header("Authorization", "Bearer " + oldToken))
+                .andExpect(status().isOk());
+
+        // Пароль сохраняется в том виде, в каком пришел, поэтому передается готовый хеш BCrypt
+        Map<String, Object> updated = Map.of(
+                "name", user.getName(),
+                "password", passwordEncoder.encode(NEW_PASSWORD),
+                "emails", List.of(Map.of("email", user.getUserEmail())));
+        mockMvc.perform(put("/api/users/{userId}", user.getId())
+                        .header("Authorization", "Bearer " + oldToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updated)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/users/{userId}", user.getId()).header("Authorization", "Bearer " + oldToken))
+                .andExpect(status().isUnauthorized());
+
+        String newToken = login(user, NEW_PASSWORD);
+        mockMvc.perform(get("/api/users/{userId}", user.getId()).header("Authorization", "Bearer " + newToken))
+                .andExpect(status().isOk());
+    }
+}
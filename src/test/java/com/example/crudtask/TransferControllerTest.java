@@ -2,6 +2,7 @@ package com.example.crudtask;
 
 import com.example.crudtask.config.JwtUtil;
 import com.example.crudtask.controller.TransferController;
+import com.example.crudtask.service.impl.TransferPipeline;
 import com.example.crudtask.service.impl.TransferService;
 import com.example.crudtask.service.impl.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -38,6 +39,9 @@ class TransferControllerTest {
     @MockBean
     private TransferService transferService;
 
+    @MockBean
+    private TransferPipeline transferPipeline;
+
     @MockBean
     private UserServiceImpl userService;
 
@@ -0,0 +1,97 @@
+package com.example.crudtask;
+
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.service.impl.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransferIdempotencyTest extends IntegrationTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private AccountDAO accountDAO;
+
+    @Test
+    void repeatedKeyReplaysResultWithoutSecondDebit() {
+        User from = createUser("1000.00");
+        User to = createUser("1500.00");
+        TestAuth.authenticate(from);
+        BigDecimal before = balanceOf(from);
+
+        String first = transferService.transferMoney(from.getId(), to.getId(), new BigDecimal("10.00"), "order-1");
+        String second = transferService.transferMoney(from.getId(), to.getId(), new BigDecimal("10"), "order-1");
+
+        assertEquals(first, second);
+        assertEquals(0, before.subtract(new BigDecimal("10.00")).compareTo(balanceOf(from)));
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.transferMoney(from.getId(), to.getId(), new BigDecimal("11.00"), "order-1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.transferMoney(from.getId(), to.getId(), BigDecimal.ONE, " "));
+    }
+
+    @Test
+    void failedTransferCanBeRetriedWithSameKey() {
+        User from = createUser("1500.00");
+        User to = createUser("2000.00");
+        TestAuth.authenticate(from);
+        BigDecimal balance = balanceOf(from);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.transferMoney(from.getId(), to.getId(), balance.add(BigDecimal.ONE), "retry-1"));
+        transferService.transferMoney(from.getId(), to.getId(), balance, "retry-1");
+
+        assertEquals(0, balanceOf(from).signum());
+    }
+
+    @Test
+    void concurrentDuplicatesExecuteOnce() throws Exception {
+        User from = createUser("2000.00");
+        User to = createUser("1000.00");
+        BigDecimal before = balanceOf(from);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(pool.submit((Callable<String>) () -> {
+                TestAuth.authenticate(from);
+                try {
+                    start.await();
+                    return transferService.transferMoney(from.getId(), to.getId(), new BigDecimal("1.00"), "parallel-1");
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<String> future : futures) {
+            assertEquals("Перевод успешен", future.get(1, TimeUnit.MINUTES));
+        }
+        pool.shutdown();
+
+        assertEquals(0, before.subtract(BigDecimal.ONE).compareTo(balanceOf(from)));
+    }
+
+    private BigDecimal balanceOf(User user) {
+        return accountDAO.findById(accountDAO.findIdByUserId(user.getId())).orElseThrow().getBalance().toBigDecimal();
+    }
+}
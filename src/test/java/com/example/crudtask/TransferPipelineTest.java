@@ -0,0 +1,133 @@
+package com.example.crudtask;
+
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.Account;
+import com.example.crudtask.entity.Money;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.service.impl.LedgerReconciliationService;
+import com.example.crudtask.service.impl.TransferPipeline;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pipelinetest;DB_CLOSE_DELAY=-1",
+        "transfer.pipeline.enabled=true",
+        "transfer.pipeline.batch-size=50"
+})
+class TransferPipelineTest extends IntegrationTest {
+
+    private static final int TRANSFERS = 500;
+
+    @Autowired
+    private TransferPipeline transferPipeline;
+
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private AccountDAO accountDAO;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void batchedTransfersConserveTotalBalanceAndMatchLedger() throws Exception {
+        List<User> users = userDAO.findAll();
+        BigDecimal totalBefore = totalBalance();
+        Random random = new Random(42);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            User from = users.get(random.nextInt(users.size()));
+            User to = users.get(random.nextInt(users.size()));
+            TestAuth.authenticate(from);
+            futures.add(transferPipeline.submit(from.getId(), to.getId(), BigDecimal.valueOf(random.nextInt(1, 50_000), 2)));
+        }
+        User poorest = users.get(0);
+        TestAuth.authenticate(poorest);
+        CompletableFuture<String> overdraft = transferPipeline.submit(poorest.getId(), users.get(1).getId(), totalBefore);
+
+        int completed = 0;
+        for (CompletableFuture<String> future : futures) {
+            try {
+                assertEquals("Перевод успешен", future.get(1, TimeUnit.MINUTES));
+                completed++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            }
+        }
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> overdraft.get(1, TimeUnit.MINUTES));
+        assertEquals("Недостаточно средств для перевода", rejected.getCause().getMessage());
+
+        assertTrue(completed > 0);
+        assertTrue(transferPipeline.getBatches() < TRANSFERS);
+        assertEquals(0, totalBefore.compareTo(totalBalance()));
+        for (Account account : accountDAO.findAll()) {
+            assertTrue(account.getBalance().signum() >= 0);
+        }
+        assertTrue(reconciliationService.reconcile().getDrifts().isEmpty());
+    }
+
+    @Test
+    void transferEndpointAnswersAfterAsyncDispatch() throws Exception {
+        User from = createUser("100.00");
+        User to = createUser("100.00");
+        String token = login(from, PASSWORD);
+
+        // Ответ конвейера приходит повторной диспетчеризацией ASYNC, уже без заголовка с токеном
+        MvcResult result = mockMvc.perform(post("/api/transfer")
+                        .header("Authorization", "Bearer " + token)
+                        .param("transferToId", to.getId().toString())
+                        .param("value", "10.00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Перевод успешен"));
+    }
+
+    @Test
+    @DirtiesContext
+    void rejectsTransfersAfterStop() throws Exception {
+        List<User> users = userDAO.findAll();
+        TestAuth.authenticate(users.get(0));
+        transferPipeline.stop();
+
+        assertThrows(RejectedExecutionException.class,
+                () -> transferPipeline.submit(users.get(0).getId(), users.get(1).getId(), BigDecimal.ONE));
+    }
+
+    private BigDecimal totalBalance() {
+        return accountDAO.findAll().stream()
+                .map(Account::getBalance)
+                .map(Money::toBigDecimal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.crudtask;
+
+import com.example.crudtask.dao.AccountDAO;
+import com.example.crudtask.entity.Account;
+import com.example.crudtask.entity.Money;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.service.impl.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransferServiceConcurrencyTest extends IntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 4000;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private AccountDAO accountDAO;
+
+    @Test
+    void parallelTransfersConserveTotalBalance() throws Exception {
+        List<User> users = List.of(createUser("1000.00"), createUser("1500.00"), createUser("2000.00"));
+        BigDecimal totalBefore = totalBalance(users);
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < TRANSFERS; i++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                User from = users.get(random.nextInt(users.size()));
+                User to = users.get(random.nextInt(users.size()));
+                BigDecimal value = BigDecimal.valueOf(random.nextInt(1, 50_000), 2);
+
+                TestAuth.authenticate(from);
+                try {
+                    transferService.transferMoney(from.getId(), to.getId(), value);
+                    completed.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    rejected.incrementAndGet();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals(TRANSFERS, completed.get() + rejected.get());
+        assertTrue(completed.get() > 0);
+        assertEquals(0, totalBefore.compareTo(totalBalance(users)));
+        for (Account account : accountsOf(users)) {
+            assertTrue(account.getBalance().signum() >= 0);
+        }
+    }
+
+    private List<Account> accountsOf(List<User> users) {
+        return users.stream()
+                .map(user -> accountDAO.findById(accountDAO.findIdByUserId(user.getId())).orElseThrow())
+                .toList();
+    }
+
+    private BigDecimal totalBalance(List<User> users) {
+        return accountsOf(users).stream()
+                .map(Account::getBalance)
+                .map(Money::toBigDecimal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
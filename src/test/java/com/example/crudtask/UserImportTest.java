@@ -0,0 +1,105 @@
+package com.example.crudtask;
+
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.service.impl.BalanceUpdateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:userimporttest;DB_CLOSE_DELAY=-1",
+        "users.import.endpoint-enabled=true",
+        // меньше числа строк, чтобы импорт прошел несколькими порциями
+        "users.import.batch-size=2"
+})
+@AutoConfigureMockMvc(addFilters = false)
+class UserImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @MockBean
+    private BalanceUpdateService balanceUpdateService;
+
+    @Test
+    void csvImportInsertsValidRowsAndRejectsDuplicates() throws Exception {
+        // Телефон вставлен в обход фильтра уникальности, как будто другим узлом
+        Long petrovId = userDAO.findByEmail("petrov@mail.com").getId();
+        jdbcTemplate.update("INSERT INTO phone_data (user_id, phone) VALUES (?, ?)", petrovId, "79990000009");
+
+        String csv = """
+                name,dateOfBirth,password,emails,phones,initialBalance
+                Анна Импортова,1995-02-03,secret,anna@import.com;anna2@import.com,79990000001,150.50
+                Повтор в файле,,secret,anna@import.com,79990000004,10
+                "Борис, младший",,secret,boris@import.com,79990000002;79990000003,10
+                Занятый email,,secret,ivanov@mail.com,79990000005,10
+                Без телефона,,secret,nophone@import.com,,10
+                Сломанная дата,31-12-1990,secret,date@import.com,79990000006,10
+                Чужой телефон,,secret,race@import.com,79990000009,10
+                Виктор Импортов,1980-01-01,secret,viktor@import.com,79990000007,99.99
+                """;
+
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("text/csv")
+                        .content(csv.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRows").value(8))
+                .andExpect(jsonPath("$.importedRows").value(3))
+                .andExpect(jsonPath("$.rejectedRows").value(5))
+                .andExpect(jsonPath("$.rejections[?(@.line == 3)].reason").value("Значение anna@import.com повторяется в файле"))
+                .andExpect(jsonPath("$.rejections[?(@.line == 5)].reason").value("Этот email уже используется другим пользователем"))
+                .andExpect(jsonPath("$.rejections[?(@.line == 8)].reason").value("Email или номер телефона уже используется другим пользователем"));
+
+        User anna = userDAO.findWithContactsById(userDAO.findByEmail("anna2@import.com").getId()).orElseThrow();
+        assertEquals("anna@import.com", anna.getUserEmail());
+        assertTrue(passwordEncoder.matches("secret", anna.getPassword()));
+        assertEquals(0, new BigDecimal("150.50").compareTo(anna.getAccount().getBalance().toBigDecimal()));
+        assertEquals(anna.getId(), anna.getAccount().getUser().getId());
+        User boris = userDAO.findWithContactsById(userDAO.findByPhone("79990000003").getId()).orElseThrow();
+        assertEquals("Борис, младший", boris.getName());
+        assertEquals(2, boris.getPhones().size());
+        assertNull(userDAO.findByEmail("race@import.com"));
+    }
+
+    @Test
+    void ndjsonImportKeepsPrecomputedHashes() throws Exception {
+        String hash = passwordEncoder.encode("secret");
+        String ndjson = "{\"name\":\"Галина\",\"password\":\"" + hash + "\",\"emails\":[\"galina@import.com\"]," +
+                "\"phones\":[\"79990000101\"],\"initialBalance\":5}\n" +
+                "{не json}\n";
+
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows").value(1))
+                .andExpect(jsonPath("$.rejections[0].line").value(2));
+
+        assertEquals(hash, userDAO.findByEmail("galina@import.com").getPassword());
+    }
+}
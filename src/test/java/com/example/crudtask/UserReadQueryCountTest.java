@@ -0,0 +1,71 @@
+package com.example.crudtask;
+
+import com.example.crudtask.service.impl.BalanceUpdateService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:userreadtest;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc(addFilters = false)
+class UserReadQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private BalanceUpdateService balanceUpdateService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getUserUsesOneStatement() throws Exception {
+        assertStatements(1, "/api/users/1");
+    }
+
+    @Test
+    void userContactsAndAccountUseOneStatementEach() throws Exception {
+        assertStatements(1, "/api/users/1/phones");
+        assertStatements(1, "/api/users/1/emails");
+        assertStatements(1, "/api/users/1/account");
+    }
+
+    @Test
+    void userListsDoNotDependOnNumberOfUsers() throws Exception {
+        // пользователи, их телефоны и их email
+        assertStatements(3, "/api/users");
+        assertStatements(3, "/api/users/search/keyset?size=2");
+        // id и общее число берутся из индекса в памяти, count в базу не уходит
+        assertStatements(3, "/api/users/search?size=2");
+    }
+
+    private void assertStatements(long expected, String url) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").exists());
+        assertEquals(expected, statistics.getPrepareStatementCount(), url);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.crudtask;
+
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.PhoneData;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.UserDto;
+import com.example.crudtask.entity.UserKeysetPage;
+import com.example.crudtask.service.UserSearchIndex;
+import com.example.crudtask.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserSearchIndexTest extends IntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void indexFollowsCommittedChanges() {
+        User user = new User();
+        user.setName("Индекс Тестов");
+        user.setUserEmail("index@mail.com");
+        user.setPassword("secret");
+        user.addPhone(new PhoneData("79990000001"));
+        user = userDAO.save(user);
+        // Пользователь создан в обход сервиса, поэтому индекс перестраивается явно
+        userSearchIndex.rebuild();
+        assertEquals(user.getId(), userSearchIndex.findUserIdByPhone("79990000001"));
+
+        TestAuth.authenticate(user);
+        userService.addEmail(user.getId(), "index.new@mail.com");
+        assertEquals(user.getId(), userSearchIndex.findUserIdByEmail("index.new@mail.com"));
+
+        Page<UserDto> found = userService.searchUsers(Optional.empty(), Optional.empty(), Optional.of("Индекс"),
+                Optional.of("index.new@mail.com"), 0, 10);
+        assertEquals(1, found.getTotalElements());
+        assertEquals(1, found.getContent().get(0).getEmails().size());
+
+        Long phoneId = userService.getUserPhones(user.getId()).get(0).getId();
+        userService.updatePhone(user.getId(), phoneId, "79990000002");
+        assertNull(userSearchIndex.findUserIdByPhone("79990000001"));
+        assertEquals(user.getId(), userSearchIndex.findUserIdByPhone("79990000002"));
+
+        assertEquals(0, userService.searchUsers(Optional.of(LocalDate.of(2100, 1, 1)), Optional.empty(),
+                Optional.empty(), Optional.empty(), 0, 10).getTotalElements());
+    }
+
+    @Test
+    void searchHandlesIdsBeyondIntRange() {
+        long bigId = 3_000_000_000L;
+        jdbcTemplate.update("INSERT INTO user_table (id, name, user_email, password) VALUES (?, ?, ?, ?)",
+                bigId, "Длинный Идентификатор", "long.id@mail.com", "secret");
+        jdbcTemplate.update("INSERT INTO email_data (id, user_id, email) VALUES (?, ?, ?)",
+                bigId, bigId, "long.id@mail.com");
+        userSearchIndex.refreshUser(bigId);
+
+        assertArrayEquals(new long[]{bigId}, userSearchIndex.search(Optional.empty(), Optional.empty(),
+                Optional.of("Длинный"), Optional.empty()));
+        assertArrayEquals(new long[]{bigId}, userSearchIndex.search(Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.of("long.id@mail.com")));
+        long[] all = userSearchIndex.search(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
+        assertEquals(bigId, all[all.length - 1]);
+    }
+
+    @Test
+    void searchRechecksIndexHitsAgainstTheDatabase() {
+        User user = new User();
+        user.setName("Перепроверка Поиска");
+        user.setUserEmail("recheck@mail.com");
+        user.setPassword("secret");
+        user.addPhone(new PhoneData("79990000077"));
+        user = userDAO.save(user);
+        userSearchIndex.rebuild();
+        assertEquals(1, userService.searchUsers(Optional.empty(), Optional.empty(), Optional.of("Перепроверка"),
+                Optional.empty(), 0, 10).getTotalElements());
+
+        // Запись в обход приложения, как с другого узла: индекс о ней не знает
+        jdbcTemplate.update("UPDATE user_table SET name = ? WHERE id = ?", "Переименован Напрямую", user.getId());
+        jdbcTemplate.update("DELETE FROM phone_data WHERE user_id = ?", user.getId());
+
+        Page<UserDto> byName = userService.searchUsers(Optional.empty(), Optional.empty(), Optional.of("Перепроверка"),
+                Optional.empty(), 0, 10);
+        assertEquals(0, byName.getTotalElements());
+        assertTrue(byName.getContent().isEmpty());
+
+        UserKeysetPage byPhone = userService.searchUsersAfter(Optional.empty(), Optional.of("79990000077"),
+                Optional.empty(), Optional.empty(), null, 10);
+        assertTrue(byPhone.getContent().isEmpty());
+        assertFalse(byPhone.isHasNext());
+    }
+}
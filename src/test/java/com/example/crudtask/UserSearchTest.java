@@ -0,0 +1,78 @@
+package com.example.crudtask;
+
+import com.example.crudtask.dao.UserDAO;
+import com.example.crudtask.entity.EmailData;
+import com.example.crudtask.entity.PhoneData;
+import com.example.crudtask.entity.User;
+import com.example.crudtask.entity.UserDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class UserSearchTest {
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @BeforeEach
+    void createUsers() {
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setName("Анна " + i);
+            user.setUserEmail("anna" + i + "@mail.com");
+            user.setPassword("secret");
+            for (int j = 0; j < 3; j++) {
+                user.addPhone(new PhoneData("7900000" + i + j));
+                user.addEmail(new EmailData("anna" + i + "." + j + "@mail.com"));
+            }
+            userDAO.save(user);
+        }
+    }
+
+    @Test
+    void searchReturnsEachUserOnceWithCorrectTotal() {
+        Page<UserDto> page = userDAO.findUsersByFilters(Optional.empty(), Optional.empty(), Optional.of("Анна"),
+                Optional.empty(), PageRequest.of(0, 10, Sort.by("id")));
+
+        assertEquals(5, page.getTotalElements());
+        assertEquals(5, page.getContent().size());
+
+        Page<UserDto> byPhone = userDAO.findUsersByFilters(Optional.empty(), Optional.of("790000021"), Optional.empty(),
+                Optional.of("anna2.2@mail.com"), PageRequest.of(0, 10));
+        assertEquals(1, byPhone.getTotalElements());
+        assertEquals("Анна 2", byPhone.getContent().get(0).getName());
+    }
+
+    @Test
+    void keysetPagesCoverAllUsersWithoutGaps() {
+        List<Long> expected = userDAO.findUsersByFilters(Optional.empty(), Optional.empty(), Optional.of("Анна"),
+                        Optional.empty(), PageRequest.of(0, 10, Sort.by("id")))
+                .map(UserDto::getId).getContent();
+
+        List<Long> seen = new ArrayList<>();
+        Long lastId = null;
+        List<UserDto> page;
+        do {
+            page = userDAO.findUsersByFiltersAfter(Optional.<LocalDate>empty(), Optional.empty(), Optional.of("Анна"),
+                    Optional.empty(), lastId, PageRequest.ofSize(2));
+            for (UserDto user : page) {
+                seen.add(user.getId());
+                lastId = user.getId();
+            }
+        } while (!page.isEmpty());
+
+        assertEquals(expected, seen);
+    }
+}